@@ -12,6 +12,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -83,9 +84,11 @@ public class ServiceController {
         return droneService.getAvailableDrones(orders);
     }
 
+    // deadline is an optional ISO-8601 duration (e.g. PT2S), the best plan found by then is returned
     @PostMapping("/calcDeliveryPath")
-    public FlightResponse calcDeliveryPath(@Valid @RequestBody List<MedDispatchRec> orders) {
-        return flightService.calculateDeliveryPath(orders);
+    public FlightResponse calcDeliveryPath(@Valid @RequestBody List<MedDispatchRec> orders,
+                                           @RequestParam(required = false) Duration deadline) {
+        return flightService.calculateDeliveryPath(orders, deadline);
     }
 
     @PostMapping("/calcDeliveryPathAsGeoJson")
@@ -2,12 +2,9 @@ package ilp.samad.ilpcoursework1.service;
 
 import ilp.samad.ilpcoursework1.data.geometry.LngLat;
 import ilp.samad.ilpcoursework1.data.geometry.Region;
+import ilp.samad.ilpcoursework1.service.geometry.CompiledRegion;
 import org.springframework.stereotype.Service;
 
-import java.awt.geom.Line2D;
-import java.awt.geom.Path2D;
-import java.util.List;
-
 @Service
 public class CalculationService {
 
@@ -51,41 +48,12 @@ public class CalculationService {
     }
 
     public boolean calculateIsInRegion(LngLat position, Region region){
-        List<LngLat> vertices = region.vertices();
-
-        LngLat firstVertex = vertices.getFirst();
-        LngLat lastVertex = vertices.getLast();
-
-        // if the polygon does not close at the end, exception handler will return 400
-        if (!firstVertex.equals(lastVertex)) {
-            throw new IllegalArgumentException("Region is not closed. (last vertex must be same as first vertex)");
-        }
-
-        Path2D.Double polygon = new Path2D.Double();
-        polygon.moveTo(firstVertex.lng(), firstVertex.lat());
-
-        for(int i = 1; i < vertices.size(); i++){
-            LngLat vertex = vertices.get(i);
-            polygon.lineTo(vertex.lng(), vertex.lat());
-        }
-
-        if (polygon.contains(position.lng(), position.lat())) {
-            return true;
-        }
-
-        // polygon.contains is inconsistent with points on the boundary (e.g. directly on a vertex)
-        // so needed to add additional checks
-        for (int i = 0; i < vertices.size() - 1; i++) {
-            LngLat p1 = vertices.get(i);
-            LngLat p2 = vertices.get(i + 1);
-            Line2D.Double edge = new Line2D.Double(p1.lng(), p1.lat(), p2.lng(), p2.lat());
-
-            // using epsilon squared because distance is being squared too so need stricter boundary
-            if (edge.ptSegDistSq(position.lng(), position.lat()) < EPSILON*EPSILON) {
-                return true;
-            }
-        }
+        // compiling validates that the region closes, if not the exception handler will return 400
+        return calculateIsInRegion(position, CompiledRegion.of(region));
+    }
 
-        return false;
+    // for callers checking the same region many times, compile it once with CompiledRegion.of
+    public boolean calculateIsInRegion(LngLat position, CompiledRegion region){
+        return region.contains(position);
     }
 }
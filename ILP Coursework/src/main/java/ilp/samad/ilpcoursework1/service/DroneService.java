@@ -1,49 +1,135 @@
 package ilp.samad.ilpcoursework1.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import ilp.samad.ilpcoursework1.data.drone.*;
 import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
 import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
 import ilp.samad.ilpcoursework1.data.request.Query;
+import ilp.samad.ilpcoursework1.service.cache.CachedDataset;
+import ilp.samad.ilpcoursework1.service.planning.PlanningContext;
+import ilp.samad.ilpcoursework1.service.query.AvailabilityIndex;
+import ilp.samad.ilpcoursework1.service.query.DroneIndex;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 public class DroneService {
     private static final Logger logger = LoggerFactory.getLogger(DroneService.class);
+    public static final Duration DEFAULT_REFERENCE_DATA_TTL = Duration.ofMinutes(5);
 
     private final String ilpServiceEndpoint;
     private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
 
-    public DroneService(String ilpServiceEndpoint, RestTemplate restTemplate, ObjectMapper objectMapper) {
+    // each of the four datasets is fetched the first time it is needed and then served from
+    // memory, refreshed in the background once older than the ttl
+    private final CachedDataset<List<Drone>> drones;
+    private final CachedDataset<List<ServicePointDrones>> availability;
+    private final CachedDataset<List<ServicePoint>> servicePoints;
+    private final CachedDataset<List<RestrictedArea>> noFlyZones;
+
+    // lookups rebuilt only when the snapshot they come from is replaced
+    private final Supplier<DroneIndex> droneIndex;
+    private final Supplier<Map<String, Drone>> dronesById;
+    private final Supplier<AvailabilityIndex> availabilityIndex;
+    private final Supplier<Map<Integer, ServicePoint>> servicePointsById;
+    // rebuilt whenever any of the four snapshots is replaced
+    private volatile PlanningContext planningContext;
+
+    public DroneService(String ilpServiceEndpoint, RestTemplate restTemplate) {
+        this(ilpServiceEndpoint, restTemplate, DEFAULT_REFERENCE_DATA_TTL);
+    }
+
+    @Autowired
+    public DroneService(String ilpServiceEndpoint, RestTemplate restTemplate,
+                        @Value("${ilp.reference-data.ttl:PT5M}") Duration referenceDataTtl) {
         this.ilpServiceEndpoint = ilpServiceEndpoint;
         this.restTemplate = restTemplate;
-        this.objectMapper = objectMapper;
+
+        this.drones = dataset("drones", Drone[].class, referenceDataTtl);
+        this.availability = dataset("drones-for-service-points", ServicePointDrones[].class, referenceDataTtl);
+        this.servicePoints = dataset("service-points", ServicePoint[].class, referenceDataTtl);
+        this.noFlyZones = dataset("restricted-areas", RestrictedArea[].class, referenceDataTtl);
+
+        this.droneIndex = drones.derive(DroneIndex::new);
+        this.dronesById = drones.derive(list -> {
+            Map<String, Drone> byId = new HashMap<>();
+            for (Drone drone : list) {
+                byId.putIfAbsent(drone.id(), drone);
+            }
+            return byId;
+        });
+        this.availabilityIndex = availability.derive(AvailabilityIndex::new);
+        this.servicePointsById = servicePoints.derive(points -> {
+            Map<Integer, ServicePoint> byId = new HashMap<>();
+            for (ServicePoint sp : points) {
+                byId.putIfAbsent(sp.id(), sp);
+            }
+            return byId;
+        });
+    }
+
+    // refreshes are conditional on the validators the service last sent, so an unchanged dataset
+    // comes back as a bodiless 304 and the snapshot already held is kept
+    private <T> CachedDataset<List<T>> dataset(String path, Class<T[]> type, Duration ttl) {
+        CachedDataset.Loader<List<T>> loader = (etag, lastModified) -> {
+            HttpHeaders headers = new HttpHeaders();
+            if (etag != null) headers.setIfNoneMatch(etag);
+            if (lastModified != null) headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+
+            ResponseEntity<T[]> response = restTemplate.exchange(ilpServiceEndpoint + path, HttpMethod.GET,
+                    new HttpEntity<>(headers), type);
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                return CachedDataset.Fetch.unchanged();
+            }
+
+            T[] body = response.getBody();
+            List<T> value = body == null ? List.of() : Collections.unmodifiableList(Arrays.asList(body.clone()));
+            return CachedDataset.Fetch.of(value, response.getHeaders().getETag(),
+                    response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+        };
+        return new CachedDataset<>(path, loader, ttl);
+    }
+
+    // all four datasets as one consistent version for a planning run
+    public PlanningContext planningContext() {
+        List<Drone> currentDrones = drones.get();
+        List<ServicePointDrones> currentAvailability = availability.get();
+        List<ServicePoint> currentServicePoints = servicePoints.get();
+        List<RestrictedArea> currentNoFlyZones = noFlyZones.get();
+
+        PlanningContext context = planningContext;
+        if (context == null || !context.isFor(currentDrones, currentAvailability, currentServicePoints, currentNoFlyZones)) {
+            context = new PlanningContext(currentDrones, currentAvailability, currentServicePoints, currentNoFlyZones);
+            planningContext = context;
+        }
+        return context;
     }
 
     public List<String> getDronesWithCooling(boolean state) {
-        String url = ilpServiceEndpoint + "drones";
         try {
-            Drone[] allDrones = restTemplate.getForObject(url, Drone[].class);
-            if (allDrones == null) return List.of();
-
             // only keep drones which match state, and return collected IDs as a list
-            return Arrays.stream(allDrones)
-                    .filter(drone -> drone.capability().cooling() == state)
-                    .map(Drone::id)
-                    .toList();
+            return droneIndex.get().ids(List.of(DroneQuery.condition("cooling", "=", String.valueOf(state))));
         } catch (RestClientException e) {
             logger.error("Alert - Failed to fetch drones: {}", e.getMessage());
             return List.of();
@@ -51,14 +137,8 @@ public class DroneService {
     }
 
     public Optional<Drone> getDrone(String id) {
-        String url = ilpServiceEndpoint + "drones";
         try {
-            Drone[] allDrones = restTemplate.getForObject(url, Drone[].class);
-            if (allDrones == null) return Optional.empty();
-
-            return Arrays.stream(allDrones)
-                    .filter(drone -> drone.id().equals(id))
-                    .findFirst();
+            return Optional.ofNullable(dronesById.get().get(id));
         } catch (RestClientException e) {
             logger.error("Alert - Failed to retrieve drone {}: {}", id, e.getMessage());
             return Optional.empty();
@@ -66,165 +146,52 @@ public class DroneService {
     }
 
     public List<String> getDronesByQuery(List<Query> queries) {
-        String url = ilpServiceEndpoint + "drones";
         try {
-            Drone[] allDrones = restTemplate.getForObject(url, Drone[].class);
-            if (allDrones == null) return List.of();
-
-            return Arrays.stream(allDrones)
-                    .filter(drone -> {
-                        for (Query q : queries) {
-                            if (!checkCondition(drone, q.attribute(), q.operator(), q.value())) {
-                                return false;
-                            }
-                        }
-                        return true;
-                    })
-                    .map(Drone::id)
-                    .toList();
+            return droneIndex.get().ids(DroneQuery.conditions(queries));
         } catch (RestClientException e) {
             logger.error("Alert - External API Error during drone query: {}", e.getMessage());
             return List.of();
         }
     }
 
-    private boolean checkCondition(Drone drone, String attribute, String operator, String value) {
-        JsonNode root = objectMapper.valueToTree(drone);
-        JsonNode node = root.findValue(attribute);
-
-        if (node == null || node.isMissingNode()) {
-            return false;
-        }
-
-        if (node.isNumber()) {
-            try {
-                double nodeValue = node.asDouble();
-                double queryValue = Double.parseDouble(value);
-
-                return switch (operator) {
-                    case "<" -> nodeValue < queryValue;
-                    case ">" -> nodeValue > queryValue;
-                    case "!=" -> nodeValue != queryValue;
-                    case "=" -> nodeValue == queryValue;
-                    default -> false;
-                };
-            } catch (NumberFormatException e) {
-                return false;
-            }
-        }
-        else if (node.isBoolean()) {
-            boolean nodeValue = node.asBoolean();
-            boolean queryValue = Boolean.parseBoolean(value);
-
-            return switch (operator) {
-                case "=" -> nodeValue == queryValue;
-                case "!=" -> nodeValue != queryValue;
-                default -> false;
-            };
-        }
-        else {
-            String nodeValue = node.asText();
-            return switch (operator) {
-                case "=" -> nodeValue.equals(value);
-                case "!=" -> !nodeValue.equals(value);
-                default -> false;
-            };
-        }
-    }
-
     // task 3a reuses task 3b for cleaner code
     public List<String> getDronesByAttribute(String attribute, String value) {
         return getDronesByQuery(List.of(new Query(attribute, "=", value)));
     }
 
-
-
     public List<String> getAvailableDrones(List<MedDispatchRec> orders) {
         if (orders == null || orders.isEmpty()) return List.of();
 
-        String dronesUrl = ilpServiceEndpoint + "drones";
-        String availabilityUrl = ilpServiceEndpoint + "drones-for-service-points";
-
         try {
-            Drone[] allDronesArr = restTemplate.getForObject(dronesUrl, Drone[].class);
-            ServicePointDrones[] allAvailability = restTemplate.getForObject(availabilityUrl, ServicePointDrones[].class);
-
-            if (allDronesArr == null || allAvailability == null) return List.of();
-
-            List<Drone> candidates = Arrays.asList(allDronesArr);
-            for (MedDispatchRec order : orders) {
-                candidates = candidates.stream()
-                        .filter(drone -> canHandleOrder(drone, order, allAvailability))
-                        .toList();
-                if (candidates.isEmpty()) return List.of();
-            }
-
-            return candidates.stream().map(Drone::id).toList();
+            List<Drone> candidates = drones.get();
+            return availabilityIndex.get().availableFor(candidates, orders);
         } catch (RestClientException e) {
             logger.error("Alert - Connectivity error during availability check: {}", e.getMessage());
             return List.of();
         }
     }
 
-
-    private boolean canHandleOrder(Drone drone, MedDispatchRec order, ServicePointDrones[] allAvailability) {
-        // heating/cooling check
-        if (Boolean.TRUE.equals(order.requirements().cooling()) && !drone.capability().cooling()) return false;
-        if (Boolean.TRUE.equals(order.requirements().heating()) && !drone.capability().heating()) return false;
-
-        // capacity check
-        if (order.requirements().capacity() > drone.capability().capacity()) return false;
-
-        // availability check
-        return isDroneAvailableAtTime(drone.id(), order.date(), order.time(), allAvailability);
+    // against the current availability snapshot, using the index already built for it
+    public boolean isDroneAvailableAtTime(String droneId, LocalDate date, LocalTime time) {
+        return availabilityIndex.get().isAvailable(droneId, date, time);
     }
 
+    // against availability data passed in. the snapshot's index is reused when that is the data
+    // given, and only other data gets an index of its own
     public boolean isDroneAvailableAtTime(String droneId, LocalDate date, LocalTime time, ServicePointDrones[] allAvailability) {
-        if (date == null || time == null) return true;
-
-        DayOfWeek day = date.getDayOfWeek();
-
-        for (ServicePointDrones sp : allAvailability) {
-            for (DroneAvailability da : sp.drones()) {
-                if (da.id().equals(droneId)) {
-                    for (Schedule s : da.availability()) {
-                        if (s.dayOfWeek() == day) {
-                            if (!time.isBefore(s.from()) && !time.isAfter(s.until())) {
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+        List<ServicePointDrones> given = Arrays.asList(allAvailability);
+        AvailabilityIndex index = availability.isLoaded() && given.equals(availability.get())
+                ? availabilityIndex.get()
+                : new AvailabilityIndex(given);
+        return index.isAvailable(droneId, date, time);
     }
 
     public List<RestrictedArea> getNoFlyZones() {
-        String url = ilpServiceEndpoint + "restricted-areas";
-        RestrictedArea[] zones = restTemplate.getForObject(url, RestrictedArea[].class);
-        if (zones == null) return List.of();
-        return Arrays.asList(zones);
+        return noFlyZones.get();
     }
 
     public Optional<ServicePoint> getServicePointForDrone(String droneId) {
-        String availabilityUrl = ilpServiceEndpoint + "drones-for-service-points";
-        ServicePointDrones[] allAvailability = restTemplate.getForObject(availabilityUrl, ServicePointDrones[].class);
-
-        if (allAvailability == null) return Optional.empty();
-
-        Integer servicePointId = null;
-
-        for (ServicePointDrones sp : allAvailability) {
-            for (DroneAvailability da : sp.drones()) {
-                if (da.id().equals(droneId)) {
-                    servicePointId = sp.servicePointId();
-                    break;
-                }
-            }
-            if (servicePointId != null) break;
-        }
-
+        Integer servicePointId = availabilityIndex.get().homeServicePointId(droneId);
         if (servicePointId == null) {
             return Optional.empty();
         }
@@ -234,13 +201,10 @@ public class DroneService {
 
     // adding a comment for GitHub automation test
     public Optional<ServicePoint> getServicePointById(Integer id) {
-        String url = ilpServiceEndpoint + "service-points";
-        ServicePoint[] points = restTemplate.getForObject(url, ServicePoint[].class);
-
-        if (points == null) return Optional.empty();
+        return Optional.ofNullable(servicePointsById.get().get(id));
+    }
 
-        return Arrays.stream(points)
-                .filter(sp -> id.equals(sp.id()))
-                .findFirst();
+    public List<ServicePoint> getServicePoints() {
+        return servicePoints.get();
     }
 }
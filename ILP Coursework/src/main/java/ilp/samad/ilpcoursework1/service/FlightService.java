@@ -8,33 +8,85 @@ import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
 import ilp.samad.ilpcoursework1.data.response.Delivery;
 import ilp.samad.ilpcoursework1.data.response.DronePath;
 import ilp.samad.ilpcoursework1.data.response.FlightResponse;
+import ilp.samad.ilpcoursework1.service.planning.DistanceMatrix;
+import ilp.samad.ilpcoursework1.service.planning.DistanceMatrixService;
+import ilp.samad.ilpcoursework1.service.planning.PlanningContext;
+import ilp.samad.ilpcoursework1.service.planning.PlanningStrategy;
+import ilp.samad.ilpcoursework1.service.planning.RouteImprover;
+import ilp.samad.ilpcoursework1.service.planning.SavingsPlanner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 
 @Service
 public class FlightService {
     private static final Logger logger = LoggerFactory.getLogger(FlightService.class);
+    // how long before the caller's deadline planning is interrupted, so it has until the deadline
+    // itself to notice and stop. a short deadline gives up at most a quarter of itself to this
+    private static final Duration SHUTDOWN_GRACE = Duration.ofMillis(250);
     private final DroneService droneService;
     private final PathService pathService;
     private final CalculationService calculationService;
-
-    public FlightService(DroneService droneService, PathService pathService, CalculationService calculationService) {
+    private final DistanceMatrixService distanceMatrixService;
+    // how many dates are planned at once
+    private final int planningParallelism;
+    // how long local search may spend improving each route
+    private final Duration routeImprovementBudget;
+    // how each date's orders are shared out into flights
+    private final PlanningStrategy planningStrategy;
+
+    public FlightService(DroneService droneService, PathService pathService, CalculationService calculationService,
+                         DistanceMatrixService distanceMatrixService,
+                         @Value("${ilp.planning.parallelism:0}") int planningParallelism,
+                         @Value("${ilp.planning.route-improvement-budget:PT0.05S}") Duration routeImprovementBudget,
+                         @Value("${ilp.planning.strategy:greedy}") PlanningStrategy planningStrategy) {
         this.droneService = droneService;
         this.pathService = pathService;
         this.calculationService = calculationService;
+        this.distanceMatrixService = distanceMatrixService;
+        // 0 or less means one per core
+        this.planningParallelism = planningParallelism > 0
+                ? planningParallelism
+                : Runtime.getRuntime().availableProcessors();
+        this.routeImprovementBudget = routeImprovementBudget;
+        this.planningStrategy = planningStrategy;
     }
 
     public FlightResponse calculateDeliveryPath(List<MedDispatchRec> orders) {
+        return calculateDeliveryPath(orders, null);
+    }
+
+    // with a deadline a quick plan is made first and then improved on until the deadline, and the
+    // best plan found by then is returned. without one (null) the full plan is waited for
+    public FlightResponse calculateDeliveryPath(List<MedDispatchRec> orders, Duration deadline) {
+        if (deadline != null && (deadline.isZero() || deadline.isNegative())) {
+            throw new IllegalArgumentException("Deadline must be positive, got " + deadline);
+        }
+
         long startTime = System.currentTimeMillis();
-        logger.info("Starting delivery path calculation for {} orders.", orders.size());
+        logger.info("Starting delivery path calculation for {} orders ({} planning).", orders.size(),
+                planningStrategy);
 
-        List<RestrictedArea> noFlyZones = droneService.getNoFlyZones();
+        // every lookup below reads this one version of the reference data
+        PlanningContext context = droneService.planningContext();
+        List<LngLat> servicePointLocations = context.servicePoints().stream()
+                .map(ServicePoint::location)
+                .toList();
 
         Map<LocalDate, List<MedDispatchRec>> ordersByDate = orders.stream()
                 .collect(Collectors.groupingBy(MedDispatchRec::date));
@@ -42,143 +94,524 @@ public class FlightService {
         List<DronePath> allDronePaths = new ArrayList<>();
         double totalCost = 0;
         int totalMoves = 0;
+        List<DatePlan> plans = deadline == null
+                ? planDates(ordersByDate, context, servicePointLocations)
+                : planDatesBefore(ordersByDate, context, servicePointLocations, deadline);
+        for (DatePlan plan : plans) {
+            allDronePaths.addAll(plan.dronePaths());
+            totalCost += plan.cost();
+            totalMoves += plan.moves();
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+
+        logger.info("Total delivery path calculated in {}ms", duration);
+
+        if (duration > 30000) {
+            logger.warn("WARNING, execution time exceeded the 30-second requirement!");
+        }
+
+        return new FlightResponse(totalCost, totalMoves, allDronePaths);
+    }
 
-        for (Map.Entry<LocalDate, List<MedDispatchRec>> entry : ordersByDate.entrySet()) {
-            List<MedDispatchRec> pendingOrders = new ArrayList<>(entry.getValue());
+    // dates share no orders and every flight starts and ends at a service point, so each date is
+    // planned as its own task. the plans are merged in date order so the response doesn't depend
+    // on which date happened to finish first. every date reads its legs off one matrix built for
+    // the whole request, so a drop-off ordered on several dates is only searched from once
+    private List<DatePlan> planDates(Map<LocalDate, List<MedDispatchRec>> ordersByDate, PlanningContext context,
+                                     List<LngLat> servicePointLocations) {
+        List<LocalDate> dates = ordersByDate.keySet().stream().sorted().toList();
+        List<LngLat> deliveries = deliveries(ordersByDate);
+        if (dates.size() <= 1 || planningParallelism == 1) {
+            DistanceMatrix matrix = distanceMatrixService.build(servicePointLocations, deliveries,
+                    context.noFlyZones());
+            return dates.stream()
+                    .map(date -> planDate(ordersByDate.get(date), context, matrix))
+                    .toList();
+        }
 
-            List<Integer> failedOrderIds = new ArrayList<>();
+        // the distance matrix's parallel streams run inside this pool too, so the cap covers them
+        try (ForkJoinPool pool = new ForkJoinPool(Math.min(planningParallelism, dates.size()))) {
+            DistanceMatrix matrix = pool.submit(() -> distanceMatrixService.build(servicePointLocations, deliveries,
+                    context.noFlyZones())).join();
+            List<ForkJoinTask<DatePlan>> tasks = dates.stream()
+                    .map(date -> pool.submit(() -> planDate(ordersByDate.get(date), context, matrix)))
+                    .toList();
+            return tasks.stream().map(ForkJoinTask::join).toList();
+        }
+    }
+
+    private static List<LngLat> deliveries(Map<LocalDate, List<MedDispatchRec>> ordersByDate) {
+        return ordersByDate.values().stream()
+                .flatMap(List::stream)
+                .map(MedDispatchRec::delivery)
+                .distinct()
+                .toList();
+    }
 
-            while (!pendingOrders.isEmpty()) {
-                if (pendingOrders.stream().allMatch(o -> failedOrderIds.contains(o.id()))) {
+    // each date is planned and improved on as its own task, and whatever each has come up with
+    // when planning has to stop is used. the pool is then shut down, which interrupts the searches
+    // still running, and given until the caller's deadline to stop so nothing carries on after it
+    private List<DatePlan> planDatesBefore(Map<LocalDate, List<MedDispatchRec>> ordersByDate, PlanningContext context,
+                                           List<LngLat> servicePointLocations, Duration deadline) {
+        long returnByNanos = System.nanoTime() + deadline.toNanos();
+        long deadlineNanos = returnByNanos - Math.min(SHUTDOWN_GRACE.toNanos(), deadline.toNanos() / 4);
+        List<LocalDate> dates = ordersByDate.keySet().stream().sorted().toList();
+        List<AnytimePlan> plans = dates.stream().map(date -> new AnytimePlan()).toList();
+        List<LngLat> deliveries = deliveries(ordersByDate);
+
+        // the quick plans only search the legs to and from the service points and string
+        // deliveries together by straight-line distance. those legs are searched as they are
+        // first read, so every date shares one lazy matrix of them
+        DistanceMatrix servicePointLegs = distanceMatrixService.buildServicePointLegs(servicePointLocations,
+                deliveries, context.noFlyZones());
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(planningParallelism, dates.size())));
+        try {
+            // the full matrix is built once for the whole request, next to the quick plans
+            ForkJoinTask<DistanceMatrix> matrix = pool.submit(() -> distanceMatrixService.build(
+                    servicePointLocations, deliveries, context.noFlyZones()));
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < dates.size(); i++) {
+                List<MedDispatchRec> dateOrders = ordersByDate.get(dates.get(i));
+                AnytimePlan plan = plans.get(i);
+                tasks.add(pool.submit(() -> improveDate(dateOrders, context, servicePointLegs, matrix, plan,
+                        deadlineNanos)));
+            }
+
+            for (ForkJoinTask<?> task : tasks) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
                     break;
                 }
+                task.get(remaining, TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            logger.info("Planning deadline of {} reached, returning the best plans found so far", deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } finally {
+            shutDown(pool, returnByNanos);
+        }
 
-                List<String> availableDroneIds = droneService.getAvailableDrones(pendingOrders);
+        return plans.stream().map(AnytimePlan::best).toList();
+    }
+
+    private static void shutDown(ForkJoinPool pool, long returnByNanos) {
+        pool.shutdownNow();
+        try {
+            if (!pool.awaitTermination(Math.max(0, returnByNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                logger.warn("Planning still running at the deadline, leaving it to stop");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-                if (availableDroneIds.isEmpty()) {
-                    MedDispatchRec nextOrder = pendingOrders.stream()
-                            .filter(o -> !failedOrderIds.contains(o.id()))
-                            .findFirst()
-                            .orElse(null);
+    // a quick plan first, then the full plan under every strategy. the best of those is then
+    // refined flight by flight, with more time for route improvement each round, for as long as
+    // that keeps turning up something better and the deadline hasn't passed
+    private void improveDate(List<MedDispatchRec> dateOrders, PlanningContext context,
+                             DistanceMatrix servicePointLegs, ForkJoinTask<DistanceMatrix> fullMatrix,
+                             AnytimePlan best, long deadlineNanos) {
+        // the quick plan is read as it grows, so even the flights packed before the deadline are
+        // worth returning
+        planFlights(dateOrders, context, servicePointLegs, PlanningStrategy.GREEDY, Duration.ZERO, best.quick());
+
+        DistanceMatrix matrix = fullMatrix.join();
+        for (PlanningStrategy strategy : PlanningStrategy.values()) {
+            if (isPast(deadlineNanos)) {
+                return;
+            }
+            DatePlan candidate = new DatePlan();
+            planFlights(dateOrders, context, matrix, strategy, before(deadlineNanos, routeImprovementBudget),
+                    candidate);
+            best.offer(candidate);
+        }
 
-                    if (nextOrder != null) {
-                        availableDroneIds = droneService.getAvailableDrones(List.of(nextOrder));
-                    }
+        DatePlan incumbent = best.best();
+        Duration improvementBudget = routeImprovementBudget.multipliedBy(4);
+        while (!isPast(deadlineNanos)) {
+            DatePlan refined = refine(incumbent, context, matrix, before(deadlineNanos, improvementBudget));
+            if (refined == null || !best.offer(refined)) {
+                return;
+            }
+            incumbent = refined;
+            improvementBudget = improvementBudget.multipliedBy(4);
+        }
+    }
+
+    private static boolean isPast(long deadlineNanos) {
+        return System.nanoTime() - deadlineNanos >= 0 || Thread.currentThread().isInterrupted();
+    }
+
+    // the budget, cut short to whatever is left before the deadline
+    private static Duration before(long deadlineNanos, Duration budget) {
+        long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+        return budget.toNanos() < remaining ? budget : Duration.ofNanos(remaining);
+    }
+
+    // every flight of the plan re-ordered with the given time for route improvement and flown
+    // again, or null if none of them got any shorter
+    private DatePlan refine(DatePlan plan, PlanningContext context, DistanceMatrix matrix, Duration improvementBudget) {
+        DatePlan refined = new DatePlan();
+        boolean improved = false;
+        for (PlannedFlight planned : plan.flights()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            PlannedFlight flown = refly(planned, context, matrix, improvementBudget);
+            improved |= flown != planned;
+            refined.add(flown);
+        }
+        return improved ? refined : null;
+    }
+
+    // the new order is only kept if it still packs every order onto the flight and takes fewer
+    // moves. the same orders at a lower cost stay within every order's cost limit
+    private PlannedFlight refly(PlannedFlight planned, PlanningContext context, DistanceMatrix matrix,
+                                Duration improvementBudget) {
+        String droneId = planned.dronePath().droneId();
+        Drone drone = context.drone(droneId).orElse(null);
+        ServicePoint servicePoint = context.servicePointFor(droneId).orElse(null);
+        if (drone == null || servicePoint == null) {
+            return planned;
+        }
+
+        List<MedDispatchRec> reordered = RouteImprover.improve(servicePoint.location(), planned.orders(), matrix,
+                improvementBudget);
+        if (reordered.equals(planned.orders())) {
+            return planned;
+        }
+
+        Flight flight = fly(droneId, drone, servicePoint, reordered, matrix, context.noFlyZones());
+        if (flight.orders().size() != planned.orders().size() || flight.moves() >= planned.moves()) {
+            return planned;
+        }
+        return new PlannedFlight(new DronePath(droneId, flight.deliveries()), flight.orders(),
+                flightCost(drone, flight.moves()), flight.moves());
+    }
+
+    private DatePlan planDate(List<MedDispatchRec> dateOrders, PlanningContext context, DistanceMatrix matrix) {
+        DatePlan plan = new DatePlan();
+        planFlights(dateOrders, context, matrix, planningStrategy, routeImprovementBudget, plan);
+        return plan;
+    }
+
+    // shares one date's orders out into flights, adding each to the plan as soon as it is flown
+    private void planFlights(List<MedDispatchRec> dateOrders, PlanningContext context, DistanceMatrix matrix,
+                             PlanningStrategy strategy, Duration improvementBudget, DatePlan plan) {
+        List<RestrictedArea> noFlyZones = context.noFlyZones();
+        List<MedDispatchRec> pendingOrders = new ArrayList<>(dateOrders);
+
+        List<Integer> failedOrderIds = new ArrayList<>();
+
+        // the savings planner lays out flights across the whole fleet first, and anything it
+        // couldn't place is left for the greedy loop below
+        if (strategy == PlanningStrategy.SAVINGS) {
+            for (SavingsPlanner.Route route : SavingsPlanner.plan(pendingOrders, context, matrix, improvementBudget)) {
+                flyRoute(route, context, matrix, plan, pendingOrders);
+            }
+        }
+
+        while (!pendingOrders.isEmpty()) {
+            if (pendingOrders.stream().allMatch(o -> failedOrderIds.contains(o.id()))) {
+                break;
+            }
+
+            List<String> availableDroneIds = context.availableDrones(pendingOrders);
+
+            if (availableDroneIds.isEmpty()) {
+                MedDispatchRec nextOrder = pendingOrders.stream()
+                        .filter(o -> !failedOrderIds.contains(o.id()))
+                        .findFirst()
+                        .orElse(null);
+
+                if (nextOrder != null) {
+                    availableDroneIds = context.availableDrones(List.of(nextOrder));
                 }
+            }
 
-                if (availableDroneIds.isEmpty()) {
-                    if (!pendingOrders.isEmpty()) {
-                        System.err.println("No drone available for order " + pendingOrders.getFirst().id());
-                        pendingOrders.removeFirst();
-                    }
-                    continue;
+            if (availableDroneIds.isEmpty()) {
+                if (!pendingOrders.isEmpty()) {
+                    System.err.println("No drone available for order " + pendingOrders.getFirst().id());
+                    pendingOrders.removeFirst();
                 }
+                continue;
+            }
 
-                String droneId = availableDroneIds.getFirst();
-                Drone drone = droneService.getDrone(droneId).orElseThrow();
-                ServicePoint startServicePoint = droneService.getServicePointForDrone(droneId).orElse(null);
+            String droneId = availableDroneIds.getFirst();
+            Drone drone = context.drone(droneId).orElseThrow();
+            ServicePoint startServicePoint = context.servicePointFor(droneId).orElse(null);
 
-                if (startServicePoint == null) {
-                    pendingOrders.removeFirst();
-                    continue;
+            if (startServicePoint == null) {
+                pendingOrders.removeFirst();
+                continue;
+            }
+            List<MedDispatchRec> optimizedQueue = optimizeRoute(startServicePoint.location(), pendingOrders, matrix,
+                    improvementBudget);
+            Flight flight = fly(droneId, drone, startServicePoint, optimizedQueue, matrix, noFlyZones);
+
+            if (flight.orders().isEmpty()) {
+                System.err.println("Drone " + droneId + " cannot handle first order " + optimizedQueue.getFirst().id());
+                pendingOrders.remove(optimizedQueue.getFirst());
+                continue;
+            }
+
+            double flightCost = flightCost(drone, flight.moves());
+
+            double costPerOrder = flightCost / flight.orders().size();
+            List<MedDispatchRec> ordersToRemoveFromFlight = new ArrayList<>();
+
+            for (MedDispatchRec order : flight.orders()) {
+                if (order.requirements().maxCost() != null && costPerOrder > order.requirements().maxCost()) {
+                    ordersToRemoveFromFlight.add(order);
+                    failedOrderIds.add(order.id());
                 }
-                List<MedDispatchRec> optimizedQueue = optimizeRoute(startServicePoint.location(), pendingOrders);
+            }
 
-                List<Delivery> flightDeliveries = new ArrayList<>();
-                List<MedDispatchRec> packedOrders = new ArrayList<>();
+            if (!ordersToRemoveFromFlight.isEmpty()) {
+                pendingOrders.removeAll(ordersToRemoveFromFlight);
 
-                LngLat currentLocation = startServicePoint.location();
-                int currentFlightMoves = 0;
-                double currentPayload = 0;
+                continue;
+            }
 
-                for (MedDispatchRec order : optimizedQueue) {
-                    if (currentPayload + order.requirements().capacity() > drone.capability().capacity()) {
-                        break;
-                    }
 
-                    List<LngLat> rawPath = pathService.findPath(currentLocation, order.delivery(), noFlyZones);
-                    List<LngLat> path = new ArrayList<>(rawPath);
+            plan.add(new PlannedFlight(new DronePath(droneId, flight.deliveries()), flight.orders(), flightCost,
+                    flight.moves()));
 
-                    if (path.isEmpty()) {
-                        System.err.println("Path not found from " + currentLocation + " to " + order.delivery());
-                        break;
-                    }
+            pendingOrders.removeAll(flight.orders());
+        }
+    }
 
-                    List<LngLat> returnPathRaw = pathService.findPath(order.delivery(), startServicePoint.location(), noFlyZones);
+    // flies a route the savings planner laid out. the planner priced it off the matrix, but legs
+    // after the first start from the hover point, so the flown route is checked again and only
+    // kept if it still holds up. whatever isn't kept stays pending for the greedy loop
+    private void flyRoute(SavingsPlanner.Route route, PlanningContext context, DistanceMatrix matrix,
+                          DatePlan plan, List<MedDispatchRec> pendingOrders) {
+        Drone drone = context.drone(route.droneId()).orElse(null);
+        ServicePoint servicePoint = context.servicePointFor(route.droneId()).orElse(null);
+        if (drone == null || servicePoint == null) {
+            return;
+        }
 
-                    int legMoves = (path.size() - 1) + 2;
-                    int returnMoves = (returnPathRaw.isEmpty() ? 0 : returnPathRaw.size() - 1);
+        Flight flight = fly(route.droneId(), drone, servicePoint, route.orders(), matrix, context.noFlyZones());
+        if (flight.orders().isEmpty()) {
+            return;
+        }
 
-                    // battery Check
-                    if (currentFlightMoves + legMoves + returnMoves > drone.capability().maxMoves()) {
-                        break;
-                    }
+        double flightCost = flightCost(drone, flight.moves());
+        double costPerOrder = flightCost / flight.orders().size();
+        boolean tooExpensive = flight.orders().stream()
+                .anyMatch(order -> order.requirements().maxCost() != null && costPerOrder > order.requirements().maxCost());
+        if (tooExpensive) {
+            return;
+        }
 
-                    currentFlightMoves += legMoves;
-                    currentPayload += order.requirements().capacity();
+        plan.add(new PlannedFlight(new DronePath(route.droneId(), flight.deliveries()), flight.orders(), flightCost,
+                flight.moves()));
+        pendingOrders.removeAll(flight.orders());
+    }
 
-                    // add extra move for hovering (delivered)
-                    LngLat hoverLocation = path.getLast();
-                    path.add(hoverLocation);
+    // the deliveries flown, the orders they carried and the moves taken, return leg included
+    private record Flight(List<Delivery> deliveries, List<MedDispatchRec> orders, int moves) {}
+
+    // packs orders from the front of the queue onto one flight until the drone runs out of
+    // capacity or battery, then flies it home. no orders packed means the first one couldn't be
+    private Flight fly(String droneId, Drone drone, ServicePoint startServicePoint, List<MedDispatchRec> queue,
+                       DistanceMatrix matrix, List<RestrictedArea> noFlyZones) {
+        List<Delivery> flightDeliveries = new ArrayList<>();
+        List<MedDispatchRec> packedOrders = new ArrayList<>();
+        // the moves each packed order added, so the last one can be taken off again
+        List<Integer> packedMoves = new ArrayList<>();
+
+        LngLat currentLocation = startServicePoint.location();
+        int currentFlightMoves = 0;
+        double currentPayload = 0;
+        List<LngLat> finalReturnPath;
+
+        // after each drop-off the search for the way home runs on its own virtual thread next to
+        // the search for the next leg out, and is cancelled if the drone ends up going on
+        try (ExecutorService legSearches = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<LngLat>> returnSearch = null;
+
+            for (MedDispatchRec order : queue) {
+                if (currentPayload + order.requirements().capacity() > drone.capability().capacity()) {
+                    break;
+                }
 
-                    flightDeliveries.add(new Delivery(order.id(), path));
-                    packedOrders.add(order);
+                // the first leg starts exactly on the service point so the matrix already has it,
+                // later legs start from wherever the drone hovered and still need their own search
+                List<LngLat> rawPath = matrix.contains(currentLocation)
+                        ? matrix.path(currentLocation, order.delivery())
+                        : pathService.findPath(currentLocation, order.delivery(), noFlyZones);
+                List<LngLat> path = new ArrayList<>(rawPath);
 
-                    currentLocation = hoverLocation;
+                if (path.isEmpty()) {
+                    System.err.println("Path not found from " + currentLocation + " to " + order.delivery());
+                    break;
                 }
 
-                if (packedOrders.isEmpty()) {
-                    System.err.println("Drone " + droneId + " cannot handle first order " + optimizedQueue.getFirst().id());
-                    pendingOrders.remove(optimizedQueue.getFirst());
-                    continue;
+                int legMoves = (path.size() - 1) + 2;
+                // the matrix's way home starts on the drop-off rather than the hover point, so it
+                // only screens orders out here. the leg actually flown is checked once it is joined
+                int returnMoves = Math.max(0, matrix.moves(order.delivery(), startServicePoint.location()));
+
+                // battery Check
+                if (currentFlightMoves + legMoves + returnMoves > drone.capability().maxMoves()) {
+                    break;
                 }
 
-                List<LngLat> finalReturnPath = pathService.findPath(currentLocation, startServicePoint.location(), noFlyZones);
-                int returnLegMoves;
-                if (!finalReturnPath.isEmpty()) {
-                    flightDeliveries.add(new Delivery(null, finalReturnPath));
-                    returnLegMoves = (finalReturnPath.size() - 1);
-                    currentFlightMoves += returnLegMoves;
+                // the drone carries on, so the way home from the previous drop-off isn't needed
+                if (returnSearch != null) {
+                    returnSearch.cancel(true);
                 }
 
-                double flightCost = drone.capability().costInitial() + drone.capability().costFinal() +
-                        (currentFlightMoves * drone.capability().costPerMove());
+                currentFlightMoves += legMoves;
+                currentPayload += order.requirements().capacity();
 
-                double costPerOrder = flightCost / packedOrders.size();
-                List<MedDispatchRec> ordersToRemoveFromFlight = new ArrayList<>();
+                // add extra move for hovering (delivered)
+                LngLat hoverLocation = path.getLast();
+                path.add(hoverLocation);
 
-                for (MedDispatchRec order : packedOrders) {
-                    if (order.requirements().maxCost() != null && costPerOrder > order.requirements().maxCost()) {
-                        ordersToRemoveFromFlight.add(order);
-                        failedOrderIds.add(order.id());
-                    }
-                }
+                flightDeliveries.add(new Delivery(order.id(), path));
+                packedOrders.add(order);
+                packedMoves.add(legMoves);
 
-                if (!ordersToRemoveFromFlight.isEmpty()) {
-                    packedOrders.removeAll(ordersToRemoveFromFlight);
-                    pendingOrders.removeAll(ordersToRemoveFromFlight);
+                currentLocation = hoverLocation;
 
-                    continue;
-                }
+                // start on the way home from here while the next leg out is searched for
+                returnSearch = legSearches.submit(() -> pathService.findPathHome(hoverLocation,
+                        startServicePoint.location(), noFlyZones));
+            }
 
+            if (packedOrders.isEmpty()) {
+                return new Flight(List.of(), List.of(), 0);
+            }
 
-                totalCost += flightCost;
-                totalMoves += currentFlightMoves;
-                allDronePaths.add(new DronePath(droneId, flightDeliveries));
+            finalReturnPath = join(returnSearch);
+        }
 
-                pendingOrders.removeAll(packedOrders);
+        // the joined way home can run longer than the matrix said. orders come off the end of
+        // the flight, each with a fresh search home from the hover point before it, until it fits
+        while (finalReturnPath.isEmpty()
+                || currentFlightMoves + (finalReturnPath.size() - 1) > drone.capability().maxMoves()) {
+            flightDeliveries.removeLast();
+            packedOrders.removeLast();
+            currentFlightMoves -= packedMoves.removeLast();
+            if (packedOrders.isEmpty()) {
+                return new Flight(List.of(), List.of(), 0);
             }
+            finalReturnPath = pathService.findPathHome(flightDeliveries.getLast().flightPath().getLast(),
+                    startServicePoint.location(), noFlyZones);
         }
 
-        long duration = System.currentTimeMillis() - startTime;
+        flightDeliveries.add(new Delivery(null, finalReturnPath));
+        currentFlightMoves += finalReturnPath.size() - 1;
 
-        logger.info("Total delivery path calculated in {}ms", duration);
+        return new Flight(flightDeliveries, packedOrders, currentFlightMoves);
+    }
 
-        if (duration > 30000) {
-            logger.warn("WARNING, execution time exceeded the 30-second requirement!");
+    private static double flightCost(Drone drone, int moves) {
+        return drone.capability().costInitial() + drone.capability().costFinal() +
+                (moves * drone.capability().costPerMove());
+    }
+
+    private static List<LngLat> join(Future<List<LngLat>> search) {
+        try {
+            return search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a return leg", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
         }
+    }
 
-        return new FlightResponse(totalCost, totalMoves, allDronePaths);
+    private static RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(e.getCause());
+    }
+
+    // one flight of a plan, with the orders it carries so it can be flown again in another order
+    private record PlannedFlight(DronePath dronePath, List<MedDispatchRec> orders, double cost, int moves) {}
+
+    // the flights planned for one date and what they add to the totals. an anytime plan can be
+    // read while it is still being added to, hence the locking
+    private static final class DatePlan {
+        private final List<PlannedFlight> flights = new ArrayList<>();
+        private double cost;
+        private int moves;
+        private int delivered;
+
+        synchronized void add(PlannedFlight flight) {
+            flights.add(flight);
+            cost += flight.cost();
+            moves += flight.moves();
+            delivered += (int) flight.dronePath().deliveries().stream().filter(d -> d.deliveryId() != null).count();
+        }
+
+        synchronized List<PlannedFlight> flights() {
+            return List.copyOf(flights);
+        }
+
+        synchronized List<DronePath> dronePaths() {
+            return flights.stream().map(PlannedFlight::dronePath).toList();
+        }
+
+        synchronized double cost() {
+            return cost;
+        }
+
+        synchronized int moves() {
+            return moves;
+        }
+
+        synchronized int delivered() {
+            return delivered;
+        }
+
+        synchronized DatePlan snapshot() {
+            DatePlan copy = new DatePlan();
+            copy.flights.addAll(flights);
+            copy.cost = cost;
+            copy.moves = moves;
+            copy.delivered = delivered;
+            return copy;
+        }
+
+        // more orders delivered wins, then the lower cost
+        boolean isBetterThan(DatePlan other) {
+            int otherDelivered = other.delivered();
+            return delivered() > otherDelivered || (delivered() == otherDelivered && cost() < other.cost());
+        }
+    }
+
+    // the best plan for one date so far. the quick plan counts from the start, however far it
+    // has got, and later plans only replace it once they have been finished
+    private static final class AnytimePlan {
+        private final DatePlan quick = new DatePlan();
+        private DatePlan best = quick;
+
+        DatePlan quick() {
+            return quick;
+        }
+
+        synchronized boolean offer(DatePlan candidate) {
+            if (!candidate.isBetterThan(best)) {
+                return false;
+            }
+            best = candidate;
+            return true;
+        }
+
+        synchronized DatePlan best() {
+            return best.snapshot();
+        }
     }
 
     public Map<String, Object> calculateDeliveryPathAsGeoJson(List<MedDispatchRec> orders) {
@@ -224,18 +657,26 @@ public class FlightService {
     }
 
 
-    private List<MedDispatchRec> optimizeRoute(LngLat startLocation, List<MedDispatchRec> orders) {
+    // nearest neighbour by actual flight moves, straight-line distance only breaks ties
+    private List<MedDispatchRec> optimizeRoute(LngLat startLocation, List<MedDispatchRec> orders, DistanceMatrix matrix,
+                                               Duration improvementBudget) {
         List<MedDispatchRec> remaining = new ArrayList<>(orders);
         List<MedDispatchRec> route = new ArrayList<>();
         LngLat current = startLocation;
 
         while (!remaining.isEmpty()) {
             MedDispatchRec nearest = null;
+            int minMoves = Integer.MAX_VALUE;
             double minDist = Double.MAX_VALUE;
 
             for (MedDispatchRec order : remaining) {
+                int moves = matrix.moves(current, order.delivery());
+                if (moves < 0) {
+                    moves = Integer.MAX_VALUE;
+                }
                 double dist = calculationService.calculateDistance(current, order.delivery());
-                if (dist < minDist) {
+                if (nearest == null || moves < minMoves || (moves == minMoves && dist < minDist)) {
+                    minMoves = moves;
                     minDist = dist;
                     nearest = order;
                 }
@@ -249,6 +690,8 @@ public class FlightService {
                 break; // shouldn't happen but IDE warned about not having null check
             }
         }
-        return route;
+        // nearest-neighbour leaves crossings and stragglers behind, so the route is tidied up
+        // before flights are packed from the front of it
+        return RouteImprover.improve(startLocation, route, matrix, improvementBudget);
     }
 }
\ No newline at end of file
@@ -2,89 +2,502 @@ package ilp.samad.ilpcoursework1.service;
 
 import ilp.samad.ilpcoursework1.data.geometry.LngLat;
 import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
-import ilp.samad.ilpcoursework1.data.geometry.Region;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.AnytimeSearch;
+import ilp.samad.ilpcoursework1.service.path.BidirectionalSearch;
+import ilp.samad.ilpcoursework1.service.path.BoundedPath;
+import ilp.samad.ilpcoursework1.service.path.ClusterGraph;
+import ilp.samad.ilpcoursework1.service.path.CostField;
+import ilp.samad.ilpcoursework1.service.path.JumpPointSearch;
+import ilp.samad.ilpcoursework1.service.path.Landmarks;
+import ilp.samad.ilpcoursework1.service.path.Moves;
+import ilp.samad.ilpcoursework1.service.path.NodeHeap;
+import ilp.samad.ilpcoursework1.service.path.PathfindingMode;
+import ilp.samad.ilpcoursework1.service.path.SearchArea;
+import ilp.samad.ilpcoursework1.service.path.SearchHeuristic;
+import ilp.samad.ilpcoursework1.service.path.SearchNodes;
+import ilp.samad.ilpcoursework1.service.path.StraightPath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.awt.geom.Line2D;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class PathService {
     private static final Logger logger = LoggerFactory.getLogger(PathService.class);
 
     private static final double MOVE_DISTANCE = 0.00015;
+    // plain a* is kept inside a SearchArea, so it only stops once it has reached every target or
+    // run out of cells to expand. the other modes search the open plane, so they give up after
+    // this many expansions and leave whatever they didn't reach to plain a*
+    private static final int MAX_EXPANSIONS = 500_000;
+    private static final int NO_EXPANSION_LIMIT = Integer.MAX_VALUE;
+    // cost fields only need to be good enough to steer a descent, so their cells are coarser.
+    // past this many cells a field stops growing and A* takes over
+    private static final double FIELD_RESOLUTION = MOVE_DISTANCE / 4;
+    private static final int FIELD_MAX_NODES = 500_000;
+    // hierarchical mode cuts the area around the zones into clusters this wide, and only legs
+    // spanning a few of them are worth planning over the cluster graph
+    private static final double CLUSTER_SIZE = 10 * MOVE_DISTANCE;
+    private static final double HIERARCHICAL_MIN_DISTANCE = 3 * CLUSTER_SIZE;
+    // searches between neighbouring entrances are short, so they give up much sooner
+    private static final int LOCAL_MAX_EXPANSIONS = 50_000;
     private final CalculationService calculationService;
+    private final PathCache pathCache;
+    private final PathfindingMode pathfindingMode;
+    private final SearchHeuristic searchHeuristic;
+
+    // rebuilt only when a different set of no-fly zones is passed in
+    private volatile ZoneIndex zoneIndex;
+    // every return leg ends on one of a handful of service points, so each one gets a cost field
+    // that is kept until the no-fly zones change
+    private final Map<LngLat, CostField> costFields = new ConcurrentHashMap<>();
+    // only built in hierarchical mode, and rebuilt whenever the no-fly zones change
+    private volatile ClusterGraph clusterGraph;
+    // likewise only for the landmark heuristic
+    private volatile Landmarks landmarks;
+    // separate locks, as building the cluster graph searches legs that may need the landmarks
+    private final Object clusterGraphLock = new Object();
+    private final Object landmarksLock = new Object();
 
     public PathService(CalculationService calculationService) {
+        this(calculationService, new PathCache(PathCache.DEFAULT_MAX_SIZE));
+    }
+
+    public PathService(CalculationService calculationService, PathCache pathCache) {
+        this(calculationService, pathCache, PathfindingMode.FLAT, SearchHeuristic.EUCLIDEAN);
+    }
+
+    public PathService(CalculationService calculationService, PathCache pathCache, PathfindingMode pathfindingMode) {
+        this(calculationService, pathCache, pathfindingMode, SearchHeuristic.EUCLIDEAN);
+    }
+
+    @Autowired
+    public PathService(CalculationService calculationService, PathCache pathCache,
+                       @Value("${ilp.pathfinding.mode:flat}") PathfindingMode pathfindingMode,
+                       @Value("${ilp.pathfinding.heuristic:euclidean}") SearchHeuristic searchHeuristic) {
         this.calculationService = calculationService;
+        this.pathCache = pathCache;
+        this.pathfindingMode = pathfindingMode == null ? PathfindingMode.FLAT : pathfindingMode;
+        this.searchHeuristic = searchHeuristic == null ? SearchHeuristic.EUCLIDEAN : searchHeuristic;
     }
 
     public List<LngLat> findPath(LngLat start, LngLat end, List<RestrictedArea> noFlyZones) {
-        PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingDouble(n -> n.fScore));
-        Map<String, Double> gScore = new HashMap<>();
+        return findPath(start, end, noFlyZones, pathfindingMode);
+    }
+
+    // the same, searched in the given mode rather than the configured one. only paths the same
+    // mode found are read back from the cache, so flat a* always gives the fewest moves
+    public List<LngLat> findPath(LngLat start, LngLat end, List<RestrictedArea> noFlyZones, PathfindingMode mode) {
+        ZoneIndex zones = zoneIndexFor(noFlyZones);
+        PathfindingMode searchMode = mode == null ? pathfindingMode : mode;
+
+        List<LngLat> cached = cachedPath(start, end, zones, searchMode);
+        if (cached != null) {
+            return cached;
+        }
+
+        SearchResult result = search(start, List.of(end), zones, NO_EXPANSION_LIMIT, searchMode);
+        List<LngLat> path = List.copyOf(result.paths().getOrDefault(end, List.of()));
+        cache(start, end, zones, searchMode, path, result);
+        return path;
+    }
+
+    // a path for the leg taking at most factor times the moves of findPath's, found with anytime
+    // a* in roughly the time budget, e.g. 1.1 and 50ms for a quick check that a leg is flyable.
+    // the result says how close it got if the budget ran out first, and is empty if no path
+    // turned up in time at all. nothing found here is cached, so findPath never picks up a path
+    // bounded by someone else's factor
+    public BoundedPath findPathWithin(LngLat start, LngLat end, List<RestrictedArea> noFlyZones, double factor,
+                                      Duration budget) {
+        ZoneIndex zones = zoneIndexFor(noFlyZones);
+
+        // only a path flat a* found is known to be the shortest
+        List<LngLat> cached = cachedPath(start, end, zones, PathfindingMode.FLAT);
+        if (cached != null) {
+            return cached.isEmpty() ? BoundedPath.NONE : new BoundedPath(cached, 1.0);
+        }
+
+        // the same straight path findPath would give
+        List<LngLat> straight = StraightPath.between(start, end, zones);
+        if (!straight.isEmpty()) {
+            return new BoundedPath(straight, 1.0);
+        }
+
+        BoundedPath found = AnytimeSearch.search(start, end, zones, factor, budget, MAX_EXPANSIONS);
+        return found.path().isEmpty() ? BoundedPath.NONE : new BoundedPath(List.copyOf(found.path()), found.bound());
+    }
+
+    // a leg ending on a service point, straight there if nothing is in the way and otherwise read
+    // off that point's cost field instead of searching. falls back to A* wherever the field can't
+    // give a valid path
+    public List<LngLat> findPathHome(LngLat start, LngLat home, List<RestrictedArea> noFlyZones) {
+        ZoneIndex zones = zoneIndexFor(noFlyZones);
+
+        List<LngLat> straight = StraightPath.between(start, home, zones);
+        if (!straight.isEmpty()) {
+            return straight;
+        }
+
+        List<LngLat> path = costFieldFor(home, zones).path(start);
+        if (!path.isEmpty()) {
+            return path;
+        }
+        return findPath(start, home, noFlyZones);
+    }
+
+    // a new field is built outside the map, so building one never holds up a lookup for another
+    // service point. two threads racing for the same one can both build it; only one is kept
+    private CostField costFieldFor(LngLat home, ZoneIndex zones) {
+        CostField field = costFields.get(home);
+        if (field != null && field.zones().fingerprint() == zones.fingerprint()) {
+            return field;
+        }
+
+        CostField built = new CostField(home, zones, FIELD_RESOLUTION, FIELD_MAX_NODES);
+        return costFields.compute(home, (point, current) ->
+                current == null || current.zones().fingerprint() != zones.fingerprint() ? built : current);
+    }
+
+    // cache keys are snapped, so a hit can be for a start a fraction of a nanodegree away. the
+    // whole path is shifted onto the real start, which keeps every step exactly one move
+    private List<LngLat> cachedPath(LngLat start, LngLat end, ZoneIndex zones, PathfindingMode mode) {
+        List<LngLat> cached = pathCache.get(start, end, zones.fingerprint(), mode);
+        if (cached == null || cached.isEmpty() || cached.getFirst().equals(start)) {
+            return cached;
+        }
+
+        double lngShift = start.lng() - cached.getFirst().lng();
+        double latShift = start.lat() - cached.getFirst().lat();
+        List<LngLat> shifted = new ArrayList<>(cached.size());
+        for (LngLat point : cached) {
+            shifted.add(new LngLat(point.lng() + lngShift, point.lat() + latShift));
+        }
+        shifted.set(0, start);
+
+        // too close to call, search again rather than risk ending just outside the goal
+        if (!calculationService.calculateClose(shifted.getLast(), end)) {
+            return null;
+        }
+        return shifted;
+    }
+
+    // paths from one start to each of several targets out of a single search, in the order the
+    // targets were given (an empty path where a target can't be reached). targets with a cached
+    // path are left out of the search, and every path found is cached as if findPath had run
+    public Map<LngLat, List<LngLat>> findPaths(LngLat start, Collection<LngLat> targets, List<RestrictedArea> noFlyZones) {
+        ZoneIndex zones = zoneIndexFor(noFlyZones);
+
+        Map<LngLat, List<LngLat>> paths = new LinkedHashMap<>();
+        List<LngLat> pending = new ArrayList<>();
+        for (LngLat target : targets) {
+            if (paths.containsKey(target)) {
+                continue;
+            }
+            List<LngLat> cached = cachedPath(start, target, zones, pathfindingMode);
+            paths.put(target, cached);
+            if (cached == null) {
+                pending.add(target);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            SearchResult result = search(start, pending, zones, NO_EXPANSION_LIMIT, pathfindingMode);
+            for (LngLat target : pending) {
+                List<LngLat> path = List.copyOf(result.paths().getOrDefault(target, List.of()));
+                cache(start, target, zones, pathfindingMode, path, result);
+                paths.put(target, path);
+            }
+        }
+        return paths;
+    }
+
+    // the paths a search found, and whether it settled every target. a search that gave up
+    // hasn't shown the rest can't be reached, so they mustn't be cached as unreachable
+    private record SearchResult(Map<LngLat, List<LngLat>> paths, boolean settled) {}
+
+    private void cache(LngLat start, LngLat end, ZoneIndex zones, PathfindingMode mode, List<LngLat> path,
+                       SearchResult result) {
+        if (!path.isEmpty() || result.settled()) {
+            pathCache.put(start, end, zones.fingerprint(), mode, path);
+        }
+    }
+
+    // a* towards whichever outstanding target is nearest, carrying on after each one is reached
+    // until none are left. the heuristic only ever grows as targets drop out, and nodes already
+    // closed keep their g-scores, so every target still gets the path a single search would find
+    private SearchResult search(LngLat start, List<LngLat> targets, ZoneIndex zones, int maxExpansions,
+                                PathfindingMode mode) {
+        return search(start, targets, zones, maxExpansions, mode, SearchArea.around(zones, start, targets));
+    }
 
-        Node startNode = new Node(start, 0.0, heuristic(start, end), null);
-        openSet.add(startNode);
-        gScore.put(key(start), 0.0);
+    // the same, with plain a* kept inside the given area rather than the one round the zones
+    private SearchResult search(LngLat start, List<LngLat> targets, ZoneIndex zones, int maxExpansions,
+                                PathfindingMode mode, SearchArea area) {
+        Map<LngLat, List<LngLat>> found = new HashMap<>();
+        List<LngLat> remaining = new ArrayList<>();
 
+        // targets with no zone near the straight line to them don't need searching for, and
+        // those buried more than a move deep in a zone can't be reached at all
+        for (LngLat target : targets) {
+            List<LngLat> straight = StraightPath.between(start, target, zones);
+            if (!straight.isEmpty()) {
+                found.put(target, straight);
+            } else if (!zones.isDeepInAnyZone(target.lng(), target.lat(), MOVE_DISTANCE)) {
+                remaining.add(target);
+            }
+        }
+
+        if (mode == PathfindingMode.HIERARCHICAL) {
+            for (Iterator<LngLat> it = remaining.iterator(); it.hasNext(); ) {
+                LngLat target = it.next();
+                if (Moves.distance(start.lng(), start.lat(), target) < HIERARCHICAL_MIN_DISTANCE) {
+                    continue;
+                }
+                List<LngLat> path = hierarchicalSearch(start, target, zones);
+                if (!path.isEmpty()) {
+                    found.put(target, path);
+                    it.remove();
+                }
+            }
+        }
+        if (remaining.isEmpty()) {
+            return new SearchResult(found, true);
+        }
+
+        // anything jump point search gives up on is searched again from the start alone
+        if (mode == PathfindingMode.JUMP_POINT) {
+            found.putAll(JumpPointSearch.search(start, remaining, zones, Math.min(maxExpansions, MAX_EXPANSIONS)));
+            remaining.removeAll(found.keySet());
+            if (remaining.isEmpty()) {
+                return new SearchResult(found, true);
+            }
+        }
+
+        // searching from both ends only pays off for a single target. if the two halves can't be
+        // joined into a valid path the leg is searched again from the start alone
+        if (mode == PathfindingMode.BIDIRECTIONAL && remaining.size() == 1) {
+            LngLat target = remaining.getFirst();
+            List<LngLat> path = BidirectionalSearch.search(start, target, zones, Math.min(maxExpansions, MAX_EXPANSIONS));
+            if (!path.isEmpty()) {
+                found.put(target, path);
+                return new SearchResult(found, true);
+            }
+        }
+
+        SearchNodes nodes = new SearchNodes(start, SearchNodes.SEARCH_RESOLUTION);
+        NodeHeap openSet = new NodeHeap(nodes);
+        Estimate estimate = estimateFor(start, remaining, zones);
+
+        int startNode = nodes.add(nodes.key(start.lng(), start.lat()), start.lng(), start.lat());
+        nodes.update(startNode, 0.0, estimate.to(start.lng(), start.lat()), SearchNodes.NONE);
+        openSet.push(startNode);
+
+        int expansions = 0;
         while (!openSet.isEmpty()) {
-            Node current = openSet.poll();
+            // only local searches between entrances have a limit, and they're expected to hit
+            // unreachable entrances now and then
+            if (++expansions > maxExpansions) {
+                return new SearchResult(found, false);
+            }
+            // speculative searches get cancelled once their result isn't needed. this throws rather
+            // than returning no path so that nothing gets cached as unreachable
+            if ((expansions & SearchNodes.CANCEL_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("A* search cancelled");
+            }
+
+            int current = openSet.pop();
+            // with a consistent heuristic the first time a node is polled its g-score is final,
+            // so it never needs expanding again
+            nodes.close(current);
 
-            logger.info("A* currently exploring -> G-score: {}, F-score: {} at [{}, {}]",
-                    current.gScore,
-                    current.fScore,
-                    current.position.lng(),
-                    current.position.lat());
+            if (logger.isDebugEnabled()) {
+                logger.debug("A* currently exploring -> G-score: {}, F-score: {} at [{}, {}]",
+                        nodes.g(current), nodes.f(current), nodes.lng(current), nodes.lat(current));
+            }
 
-            if (calculationService.calculateClose(current.position, end)) {
-                return reconstructPath(current);
+            if (reachTargets(nodes, current, remaining, found)) {
+                if (remaining.isEmpty()) {
+                    logger.debug("A* found {} path(s) after expanding {} of {} nodes",
+                            found.size(), closedCount(nodes, openSet), nodes.size());
+                    return new SearchResult(found, true);
+                }
+                estimate = estimateFor(start, remaining, zones);
+                // everything still queued is re-scored against the targets that are left
+                openSet.rescore(estimate::to);
             }
 
-            for (double angle = 0; angle < 360; angle += 22.5) {
-                LngLat neighborPos = calculationService.calculateNextPosition(current.position, angle);
-                String neighborKey = key(neighborPos);
+            double currentLng = nodes.lng(current);
+            double currentLat = nodes.lat(current);
+            double tentativeGScore = nodes.g(current) + MOVE_DISTANCE;
+
+            for (int direction = 0; direction < Moves.DIRECTIONS; direction++) {
+                double neighborLng = currentLng + Moves.lngOffset(direction);
+                double neighborLat = currentLat + Moves.latOffset(direction);
+                long neighborKey = nodes.key(neighborLng, neighborLat);
 
-                if (isMoveInvalid(current.position, neighborPos, noFlyZones)) {
+                int neighbor = nodes.find(neighborKey);
+                if (neighbor != SearchNodes.NONE && (nodes.isClosed(neighbor) || tentativeGScore >= nodes.g(neighbor))) {
                     continue;
                 }
 
-                double tentativeGScore = gScore.getOrDefault(key(current.position), Double.MAX_VALUE) + MOVE_DISTANCE;
+                if (!area.contains(neighborLng, neighborLat)
+                        || zones.isMoveInvalid(currentLng, currentLat, neighborLng, neighborLat)) {
+                    continue;
+                }
 
-                if (tentativeGScore < gScore.getOrDefault(neighborKey, Double.MAX_VALUE)) {
-                    Node neighbor = new Node(
-                            neighborPos,
-                            tentativeGScore,
-                            tentativeGScore + heuristic(neighborPos, end),
-                            current // Parent is stored directly in the Node
-                    );
+                if (neighbor == SearchNodes.NONE) {
+                    neighbor = nodes.add(neighborKey, neighborLng, neighborLat);
+                }
+                nodes.update(neighbor, neighborLng, neighborLat, tentativeGScore,
+                        tentativeGScore + estimate.to(neighborLng, neighborLat), current);
+                // decrease-key if the neighbour was already queued
+                openSet.push(neighbor);
+            }
+        }
 
-                    gScore.put(neighborKey, tentativeGScore);
-                    openSet.add(neighbor);
+        return new SearchResult(found, true);
+    }
+
+    // plans the leg over the cluster graph, then searches from entrance to entrance. each stretch
+    // heads for the furthest entrance it can fly straight to, which takes out most of the detour
+    // of passing through entrances. empty if the graph can't help, so the caller falls back to a*
+    private List<LngLat> hierarchicalSearch(LngLat start, LngLat end, ZoneIndex zones) {
+        // built up front rather than from inside the cluster graph's parallel leg searches
+        if (searchHeuristic == SearchHeuristic.LANDMARKS && !zones.isEmpty()) {
+            landmarksFor(zones);
+        }
+        ClusterGraph.LegSearch localSearch = (from, targets, area) ->
+                search(from, targets, zones, LOCAL_MAX_EXPANSIONS, PathfindingMode.FLAT, area).paths();
+        List<LngLat> waypoints = clusterGraphFor(zones, localSearch).waypoints(start, end, localSearch);
+        if (waypoints == null) {
+            return List.of();
+        }
+        waypoints = new ArrayList<>(waypoints);
+        waypoints.add(end);
+
+        List<LngLat> path = new ArrayList<>();
+        path.add(start);
+        LngLat current = start;
+        int next = 0;
+        while (next < waypoints.size()) {
+            int target = next;
+            for (int later = waypoints.size() - 1; later > next; later--) {
+                LngLat waypoint = waypoints.get(later);
+                if (zones.isCorridorClear(current.lng(), current.lat(), waypoint.lng(), waypoint.lat(), MOVE_DISTANCE)) {
+                    target = later;
+                    break;
                 }
             }
+
+            LngLat waypoint = waypoints.get(target);
+            List<LngLat> stretch = search(current, List.of(waypoint), zones, LOCAL_MAX_EXPANSIONS, PathfindingMode.FLAT)
+                    .paths().getOrDefault(waypoint, List.of());
+            if (stretch.isEmpty()) {
+                return List.of();
+            }
+            path.addAll(stretch.subList(1, stretch.size()));
+            current = path.getLast();
+            next = target + 1;
         }
+        return path;
+    }
 
-        return List.of();
+    private ClusterGraph clusterGraphFor(ZoneIndex zones, ClusterGraph.LegSearch localSearch) {
+        ClusterGraph graph = clusterGraph;
+        if (graph != null && graph.zones().fingerprint() == zones.fingerprint()) {
+            return graph;
+        }
+        synchronized (clusterGraphLock) {
+            graph = clusterGraph;
+            if (graph == null || graph.zones().fingerprint() != zones.fingerprint()) {
+                long startTime = System.currentTimeMillis();
+                graph = new ClusterGraph(zones, CLUSTER_SIZE, localSearch);
+                clusterGraph = graph;
+                logger.info("Cluster graph with {} entrances built in {}ms",
+                        graph.entranceCount(), System.currentTimeMillis() - startTime);
+            }
+            return graph;
+        }
+    }
+
+    // records the path to every outstanding target the node is close to
+    private boolean reachTargets(SearchNodes nodes, int node, List<LngLat> remaining, Map<LngLat, List<LngLat>> found) {
+        boolean reached = false;
+        LngLat position = nodes.position(node);
+        for (Iterator<LngLat> it = remaining.iterator(); it.hasNext(); ) {
+            LngLat target = it.next();
+            if (calculationService.calculateClose(position, target)) {
+                found.put(target, nodes.path(node));
+                it.remove();
+                reached = true;
+            }
+        }
+        return reached;
+    }
+
+    // distance still to go from a position, as an a* heuristic
+    @FunctionalInterface
+    private interface Estimate {
+        double to(double lng, double lat);
+    }
+
+    // straight-line distance to the nearest target. a search down to its last target can also
+    // use the landmark bound, whichever of the two is larger
+    private Estimate estimateFor(LngLat start, List<LngLat> remaining, ZoneIndex zones) {
+        Estimate straightLine = (lng, lat) -> Moves.nearest(lng, lat, remaining);
+        if (searchHeuristic != SearchHeuristic.LANDMARKS || remaining.size() != 1 || zones.isEmpty()) {
+            return straightLine;
+        }
+
+        Landmarks.Bound bound = landmarksFor(zones).towards(start, remaining.getFirst());
+        if (bound == null) {
+            return straightLine;
+        }
+        return (lng, lat) -> Math.max(straightLine.to(lng, lat), bound.moves(lng, lat) * MOVE_DISTANCE);
+    }
+
+    private Landmarks landmarksFor(ZoneIndex zones) {
+        Landmarks current = landmarks;
+        if (current != null && current.zones().fingerprint() == zones.fingerprint()) {
+            return current;
+        }
+        synchronized (landmarksLock) {
+            current = landmarks;
+            if (current == null || current.zones().fingerprint() != zones.fingerprint()) {
+                long startTime = System.currentTimeMillis();
+                current = new Landmarks(zones);
+                landmarks = current;
+                logger.info("Landmark distances for {} landmarks built in {}ms",
+                        current.positions().size(), System.currentTimeMillis() - startTime);
+            }
+            return current;
+        }
     }
 
     public double heuristic(LngLat a, LngLat b) {
         return calculationService.calculateDistance(a, b);
     }
 
-    private boolean isMoveInvalid(LngLat start, LngLat end, List<RestrictedArea> noFlyZones) {
-        for (RestrictedArea zone : noFlyZones) {
-            Region tempRegion = new Region(zone.name(), zone.vertices());
-            if (calculationService.calculateIsInRegion(end, tempRegion)) {
-                return true;
-            }
+    private static int closedCount(SearchNodes nodes, NodeHeap openSet) {
+        return nodes.size() - openSet.size();
+    }
 
-            if (doesLineIntersectPolygon(start, end, zone.vertices())) {
-                return true;
-            }
+    private ZoneIndex zoneIndexFor(List<RestrictedArea> noFlyZones) {
+        ZoneIndex index = zoneIndex;
+        if (index == null || !index.isFor(noFlyZones)) {
+            index = new ZoneIndex(noFlyZones);
+            zoneIndex = index;
         }
-        return false;
+        return index;
     }
 
     // avoids corner cutting
@@ -113,12 +526,6 @@ public class PathService {
         return path;
     }
 
-    private String key(LngLat pos) {
-        double roundedLng = Math.round(pos.lng() * 1e10) / 1e10;
-        double roundedLat = Math.round(pos.lat() * 1e10) / 1e10;
-        return roundedLng + "," + roundedLat;
-    }
-
     public static class Node {
         LngLat position;
         double gScore;
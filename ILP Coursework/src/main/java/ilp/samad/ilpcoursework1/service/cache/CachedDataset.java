@@ -0,0 +1,156 @@
+package ilp.samad.ilpcoursework1.service.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// one remote dataset held as an immutable snapshot. the first read fetches it, after that reads
+// never wait on the network: once the snapshot is older than the ttl the current one is still
+// returned while a single background fetch replaces it. a loader that understands conditional
+// requests gets the previous fetch's validators, and a not-modified answer keeps the snapshot
+// (the very same value, so nothing derived from it is rebuilt) and only resets its age
+public final class CachedDataset<T> {
+    private static final Logger logger = LoggerFactory.getLogger(CachedDataset.class);
+
+    private final String name;
+    private final Loader<T> loader;
+    private final Duration ttl;
+    private final Executor refresher;
+    private final Clock clock;
+
+    private final AtomicReference<Snapshot<T>> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    // fetches the dataset, conditionally on the validators of the last fetch (both null if there
+    // wasn't one, or the server sent none)
+    @FunctionalInterface
+    public interface Loader<T> {
+        Fetch<T> load(String etag, String lastModified);
+    }
+
+    // what a fetch came back with: the data and the validators to send next time, or just that
+    // the copy already held is still current
+    public record Fetch<T>(T value, String etag, String lastModified, boolean notModified) {
+
+        public static <T> Fetch<T> of(T value, String etag, String lastModified) {
+            return new Fetch<>(value, etag, lastModified, false);
+        }
+
+        public static <T> Fetch<T> unchanged() {
+            return new Fetch<>(null, null, null, true);
+        }
+    }
+
+    public CachedDataset(String name, Supplier<T> loader, Duration ttl) {
+        this(name, unconditional(loader), ttl);
+    }
+
+    public CachedDataset(String name, Supplier<T> loader, Duration ttl, Executor refresher, Clock clock) {
+        this(name, unconditional(loader), ttl, refresher, clock);
+    }
+
+    public CachedDataset(String name, Loader<T> loader, Duration ttl) {
+        this(name, loader, ttl, task -> Thread.ofVirtual().name("refresh-" + name).start(task), Clock.systemUTC());
+    }
+
+    public CachedDataset(String name, Loader<T> loader, Duration ttl, Executor refresher, Clock clock) {
+        this.name = name;
+        this.loader = loader;
+        this.ttl = ttl;
+        this.refresher = refresher;
+        this.clock = clock;
+    }
+
+    // any exception from the loader is passed on if there is no snapshot to fall back to yet
+    public T get() {
+        Snapshot<T> current = snapshot.get();
+        if (current == null) {
+            return loadFirst();
+        }
+
+        if (isStale(current) && refreshing.compareAndSet(false, true)) {
+            refresher.execute(this::refreshInBackground);
+        }
+        return current.value();
+    }
+
+    // fetches now and swaps the result in, regardless of age
+    public T refresh() {
+        Snapshot<T> current = snapshot.get();
+        Fetch<T> fetched = current == null
+                ? loader.load(null, null)
+                : loader.load(current.etag(), current.lastModified());
+
+        if (fetched.notModified()) {
+            if (current == null) {
+                throw new IllegalStateException(name + " came back not modified with no copy held");
+            }
+            snapshot.set(new Snapshot<>(current.value(), current.etag(), current.lastModified(), clock.instant()));
+            return current.value();
+        }
+        snapshot.set(new Snapshot<>(fetched.value(), fetched.etag(), fetched.lastModified(), clock.instant()));
+        return fetched.value();
+    }
+
+    // a value worked out from the snapshot (an index, a lookup map...) that is only recomputed
+    // once the snapshot it came from has been replaced
+    public <R> Supplier<R> derive(Function<T, R> function) {
+        AtomicReference<Derived<T, R>> memo = new AtomicReference<>();
+        return () -> {
+            T source = get();
+            Derived<T, R> derived = memo.get();
+            if (derived == null || derived.source() != source) {
+                derived = new Derived<>(source, function.apply(source));
+                memo.set(derived);
+            }
+            return derived.value();
+        };
+    }
+
+    public void invalidate() {
+        snapshot.set(null);
+    }
+
+    public boolean isLoaded() {
+        return snapshot.get() != null;
+    }
+
+    // only one caller fetches, anyone arriving meanwhile waits for that result
+    private synchronized T loadFirst() {
+        Snapshot<T> current = snapshot.get();
+        if (current != null) {
+            return current.value();
+        }
+        return refresh();
+    }
+
+    private void refreshInBackground() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Alert - Failed to refresh {}, still serving the previous copy: {}", name, e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private boolean isStale(Snapshot<T> current) {
+        return Duration.between(current.loadedAt(), clock.instant()).compareTo(ttl) >= 0;
+    }
+
+    private static <T> Loader<T> unconditional(Supplier<T> loader) {
+        return (etag, lastModified) -> Fetch.of(loader.get(), null, null);
+    }
+
+    private record Snapshot<T>(T value, String etag, String lastModified, Instant loadedAt) {}
+
+    private record Derived<T, R>(T source, R value) {}
+}
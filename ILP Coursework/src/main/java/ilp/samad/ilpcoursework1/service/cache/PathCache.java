@@ -0,0 +1,117 @@
+package ilp.samad.ilpcoursework1.service.cache;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.service.path.Lattice;
+import ilp.samad.ilpcoursework1.service.path.PathfindingMode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// bounded LRU of finished paths shared across requests. entries are keyed on the start and end
+// snapped to the lattice plus a fingerprint of the no-fly zones, so a changed zone set can never
+// be served a stale path. the mode that searched is part of the key too, so a flat a* lookup is
+// never served a longer path another mode found
+@Component
+public class PathCache implements MeterBinder {
+
+    public static final int DEFAULT_MAX_SIZE = 2_000;
+
+    private final int maxSize;
+    private final Map<Key, List<LngLat>> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long zoneFingerprint;
+
+    public PathCache(@Value("${ilp.path-cache.max-size:" + DEFAULT_MAX_SIZE + "}") int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Path cache size cannot be negative.");
+        }
+        this.maxSize = maxSize;
+        // access ordered so the eldest entry is always the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<LngLat>> eldest) {
+                return size() > PathCache.this.maxSize;
+            }
+        };
+    }
+
+    public List<LngLat> get(LngLat start, LngLat end, long zoneFingerprint, PathfindingMode mode) {
+        List<LngLat> path;
+        synchronized (this) {
+            path = entries.get(Key.of(start, end, zoneFingerprint, mode));
+        }
+
+        if (path == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return path;
+    }
+
+    public void put(LngLat start, LngLat end, long zoneFingerprint, PathfindingMode mode, List<LngLat> path) {
+        if (maxSize == 0) {
+            return;
+        }
+        List<LngLat> copy = List.copyOf(path);
+        synchronized (this) {
+            // paths for an older zone set can never be hit again, drop them straight away
+            if (zoneFingerprint != this.zoneFingerprint) {
+                entries.clear();
+                this.zoneFingerprint = zoneFingerprint;
+            }
+            entries.put(Key.of(start, end, zoneFingerprint, mode), copy);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ilp.path.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("Path lookups answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("ilp.path.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .description("Path lookups that had to run a search")
+                .register(registry);
+        Gauge.builder("ilp.path.cache.size", this, PathCache::size)
+                .description("Paths currently held in the cache")
+                .register(registry);
+    }
+
+    private record Key(long startLng, long startLat, long endLng, long endLat, long zones, PathfindingMode mode) {
+
+        static Key of(LngLat start, LngLat end, long zones, PathfindingMode mode) {
+            return new Key(snap(start.lng()), snap(start.lat()), snap(end.lng()), snap(end.lat()), zones, mode);
+        }
+
+        private static long snap(double value) {
+            return Math.round(value / Lattice.RESOLUTION);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ilp.samad.ilpcoursework1.service.geometry;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.Region;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+
+import java.awt.geom.Line2D;
+import java.util.List;
+
+// a region or restricted area validated and flattened once, so it can be queried over and over
+// without re-checking closure or allocating a Path2D/Line2D per call
+public final class CompiledRegion {
+
+    // tolerance for points on the boundary, same as CalculationService
+    private static final double EPSILON = 1e-9;
+
+    private final String name;
+    // vertex i is (lngs[i], lats[i]), with the closing vertex at the end so edge i always runs
+    // from vertex i to vertex i + 1. the closing vertex is only stored once, so there is no
+    // zero length edge from it back to the first
+    private final double[] lngs;
+    private final double[] lats;
+    private final int edgeCount;
+
+    private final double minLng;
+    private final double minLat;
+    private final double maxLng;
+    private final double maxLat;
+
+    private CompiledRegion(String name, List<LngLat> vertices) {
+        if (vertices.isEmpty()) {
+            throw new IllegalArgumentException("Region has no vertices.");
+        }
+
+        // if the polygon does not close at the end, exception handler will return 400
+        if (!vertices.getFirst().equals(vertices.getLast())) {
+            throw new IllegalArgumentException("Region is not closed. (last vertex must be same as first vertex)");
+        }
+
+        this.name = name;
+        // a lone vertex closes on itself and keeps its one zero length edge, so it stays a point
+        this.edgeCount = Math.max(1, vertices.size() - 1);
+        this.lngs = new double[edgeCount + 1];
+        this.lats = new double[edgeCount + 1];
+
+        double lowLng = Double.MAX_VALUE, lowLat = Double.MAX_VALUE;
+        double highLng = -Double.MAX_VALUE, highLat = -Double.MAX_VALUE;
+
+        for (int i = 0; i < edgeCount; i++) {
+            LngLat vertex = vertices.get(i);
+            lngs[i] = vertex.lng();
+            lats[i] = vertex.lat();
+
+            lowLng = Math.min(lowLng, vertex.lng());
+            lowLat = Math.min(lowLat, vertex.lat());
+            highLng = Math.max(highLng, vertex.lng());
+            highLat = Math.max(highLat, vertex.lat());
+        }
+        lngs[edgeCount] = lngs[0];
+        lats[edgeCount] = lats[0];
+
+        this.minLng = lowLng;
+        this.minLat = lowLat;
+        this.maxLng = highLng;
+        this.maxLat = highLat;
+    }
+
+    public static CompiledRegion of(Region region) {
+        return new CompiledRegion(region.name(), region.vertices());
+    }
+
+    public static CompiledRegion of(RestrictedArea area) {
+        return new CompiledRegion(area.name(), area.vertices());
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean contains(LngLat position) {
+        return contains(position.lng(), position.lat());
+    }
+
+    // inside the polygon or on its boundary
+    public boolean contains(double lng, double lat) {
+        if (!boundingBoxContains(lng, lat)) {
+            return false;
+        }
+
+        boolean inside = false;
+        for (int i = 0; i < edgeCount; i++) {
+            double x1 = lngs[i], y1 = lats[i], x2 = lngs[i + 1], y2 = lats[i + 1];
+
+            // crossing number test, equivalent to Path2D.contains for simple polygons
+            if ((y1 > lat) != (y2 > lat) && lng < (x2 - x1) * (lat - y1) / (y2 - y1) + x1) {
+                inside = !inside;
+            }
+
+            // the crossing test is inconsistent for points on the boundary (e.g. directly on a vertex)
+            // using epsilon squared because distance is being squared too so need stricter boundary
+            if (Line2D.ptSegDistSq(x1, y1, x2, y2, lng, lat) < EPSILON * EPSILON) {
+                return true;
+            }
+        }
+        return inside;
+    }
+
+    // true if the line between the two positions crosses or touches any edge (avoids corner cutting)
+    public boolean intersectsSegment(double startLng, double startLat, double endLng, double endLat) {
+        if (Math.max(startLng, endLng) < minLng || Math.min(startLng, endLng) > maxLng
+                || Math.max(startLat, endLat) < minLat || Math.min(startLat, endLat) > maxLat) {
+            return false;
+        }
+
+        for (int i = 0; i < edgeCount; i++) {
+            if (Line2D.linesIntersect(startLng, startLat, endLng, endLat, lngs[i], lats[i], lngs[i + 1], lats[i + 1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // bounding box padded by the boundary tolerance, so it never rejects a point on an edge
+    public boolean boundingBoxContains(double lng, double lat) {
+        return lng >= minLng - EPSILON && lng <= maxLng + EPSILON
+                && lat >= minLat - EPSILON && lat <= maxLat + EPSILON;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    // vertex i for 0 <= i <= edgeCount, the last one being the first vertex again
+    public double vertexLng(int i) {
+        return lngs[i];
+    }
+
+    public double vertexLat(int i) {
+        return lats[i];
+    }
+
+    public double minLng() {
+        return minLng;
+    }
+
+    public double minLat() {
+        return minLat;
+    }
+
+    public double maxLng() {
+        return maxLng;
+    }
+
+    public double maxLat() {
+        return maxLat;
+    }
+}
@@ -0,0 +1,349 @@
+package ilp.samad.ilpcoursework1.service.geometry;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+
+import java.awt.geom.Line2D;
+import java.util.Arrays;
+import java.util.List;
+
+// uniform grid over the no-fly zones, built once per set of restricted areas so that checking a
+// single move only looks at the handful of edges in the cells the move passes through
+public final class ZoneIndex {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+    // same boundary tolerance as CompiledRegion
+    private static final double EPSILON = 1e-9;
+    // caps the grid size when zones are spread over a large area
+    private static final int MAX_CELLS_PER_AXIS = 256;
+
+    private final List<RestrictedArea> source;
+    private final long fingerprint;
+    private final CompiledRegion[] regions;
+
+    // flat edge table across all zones, edge i runs from (x1[i], y1[i]) to (x2[i], y2[i])
+    private final double[] x1;
+    private final double[] y1;
+    private final double[] x2;
+    private final double[] y2;
+
+    private final double minLng;
+    private final double minLat;
+    private final double maxLng;
+    private final double maxLat;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[][] cellEdges;
+    private final int[][] cellZones;
+
+    public ZoneIndex(List<RestrictedArea> noFlyZones) {
+        this.source = noFlyZones;
+        this.fingerprint = fingerprint(noFlyZones);
+        this.regions = new CompiledRegion[noFlyZones.size()];
+
+        int edgeCount = 0;
+        for (int z = 0; z < regions.length; z++) {
+            regions[z] = CompiledRegion.of(noFlyZones.get(z));
+            edgeCount += regions[z].edgeCount();
+        }
+
+        x1 = new double[edgeCount];
+        y1 = new double[edgeCount];
+        x2 = new double[edgeCount];
+        y2 = new double[edgeCount];
+
+        double lowLng = Double.MAX_VALUE, lowLat = Double.MAX_VALUE;
+        double highLng = -Double.MAX_VALUE, highLat = -Double.MAX_VALUE;
+
+        int edge = 0;
+        for (CompiledRegion region : regions) {
+            for (int i = 0; i < region.edgeCount(); i++) {
+                x1[edge] = region.vertexLng(i);
+                y1[edge] = region.vertexLat(i);
+                x2[edge] = region.vertexLng(i + 1);
+                y2[edge] = region.vertexLat(i + 1);
+                edge++;
+            }
+
+            lowLng = Math.min(lowLng, region.minLng());
+            lowLat = Math.min(lowLat, region.minLat());
+            highLng = Math.max(highLng, region.maxLng());
+            highLat = Math.max(highLat, region.maxLat());
+        }
+
+        if (edgeCount == 0) {
+            minLng = minLat = maxLng = maxLat = 0;
+            cellSize = 1;
+            columns = rows = 0;
+            cellEdges = new int[0][];
+            cellZones = new int[0][];
+            return;
+        }
+
+        minLng = lowLng;
+        minLat = lowLat;
+        maxLng = highLng;
+        maxLat = highLat;
+
+        double extent = Math.max(maxLng - minLng, maxLat - minLat);
+        cellSize = Math.max(2 * MOVE_DISTANCE, extent / MAX_CELLS_PER_AXIS);
+        columns = (int) ((maxLng - minLng) / cellSize) + 1;
+        rows = (int) ((maxLat - minLat) / cellSize) + 1;
+
+        IntListBuilder edgesPerCell = new IntListBuilder(columns * rows);
+        for (int e = 0; e < edgeCount; e++) {
+            addToCells(edgesPerCell, e,
+                    Math.min(x1[e], x2[e]), Math.min(y1[e], y2[e]),
+                    Math.max(x1[e], x2[e]), Math.max(y1[e], y2[e]));
+        }
+
+        IntListBuilder zonesPerCell = new IntListBuilder(columns * rows);
+        for (int z = 0; z < regions.length; z++) {
+            // padded so points within the boundary tolerance still find the zone
+            addToCells(zonesPerCell, z, regions[z].minLng() - EPSILON, regions[z].minLat() - EPSILON,
+                    regions[z].maxLng() + EPSILON, regions[z].maxLat() + EPSILON);
+        }
+
+        cellEdges = edgesPerCell.build();
+        cellZones = zonesPerCell.build();
+    }
+
+    // true when this index was built from the given zones, lets callers reuse it between searches
+    public boolean isFor(List<RestrictedArea> noFlyZones) {
+        return source == noFlyZones || source.equals(noFlyZones);
+    }
+
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    // 64-bit hash of every zone's name and vertices in order, so two fetches of the same zones
+    // give the same value and any moved, added or removed vertex gives a different one
+    public static long fingerprint(List<RestrictedArea> noFlyZones) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (RestrictedArea zone : noFlyZones) {
+            hash = mix(hash, zone.name() == null ? 0 : zone.name().hashCode());
+            List<LngLat> vertices = zone.vertices() == null ? List.of() : zone.vertices();
+            hash = mix(hash, vertices.size());
+            for (LngLat vertex : vertices) {
+                hash = mix(hash, Double.doubleToLongBits(vertex.lng()));
+                hash = mix(hash, Double.doubleToLongBits(vertex.lat()));
+            }
+        }
+        return mix(hash, noFlyZones.size());
+    }
+
+    private static long mix(long hash, long value) {
+        hash ^= value * 0xC2B2AE3D27D4EB4FL;
+        hash = Long.rotateLeft(hash, 31) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    public List<CompiledRegion> regions() {
+        return List.of(regions);
+    }
+
+    public boolean isEmpty() {
+        return columns == 0;
+    }
+
+    // bounding box around every zone, all 0 when there are none
+    public double minLng() {
+        return minLng;
+    }
+
+    public double minLat() {
+        return minLat;
+    }
+
+    public double maxLng() {
+        return maxLng;
+    }
+
+    public double maxLat() {
+        return maxLat;
+    }
+
+    public boolean isMoveInvalid(LngLat start, LngLat end) {
+        return isMoveInvalid(start.lng(), start.lat(), end.lng(), end.lat());
+    }
+
+    // same rules as before: a move is invalid if it ends inside (or on the edge of) a zone,
+    // or if the line between the two positions crosses any zone edge (avoids corner cutting)
+    public boolean isMoveInvalid(double startLng, double startLat, double endLng, double endLat) {
+        if (columns == 0) {
+            return false;
+        }
+
+        double lowLng = Math.min(startLng, endLng) - EPSILON;
+        double lowLat = Math.min(startLat, endLat) - EPSILON;
+        double highLng = Math.max(startLng, endLng) + EPSILON;
+        double highLat = Math.max(startLat, endLat) + EPSILON;
+
+        // quick reject for moves nowhere near any zone
+        if (highLng < minLng || lowLng > maxLng || highLat < minLat || lowLat > maxLat) {
+            return false;
+        }
+
+        if (isInAnyZone(endLng, endLat)) {
+            return true;
+        }
+
+        int firstColumn = column(lowLng), lastColumn = column(highLng);
+        int firstRow = row(lowLat), lastRow = row(highLat);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                for (int e : cellEdges[r * columns + c]) {
+                    if (Line2D.linesIntersect(startLng, startLat, endLng, endLat, x1[e], y1[e], x2[e], y2[e])) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // true when no zone comes within clearance of the segment, so nothing flown that close to the
+    // straight line can touch one. every edge is looked at rather than the cells, since a long
+    // segment can cover most of the grid
+    public boolean isCorridorClear(double startLng, double startLat, double endLng, double endLat, double clearance) {
+        if (columns == 0) {
+            return true;
+        }
+
+        double lowLng = Math.min(startLng, endLng) - clearance;
+        double lowLat = Math.min(startLat, endLat) - clearance;
+        double highLng = Math.max(startLng, endLng) + clearance;
+        double highLat = Math.max(startLat, endLat) + clearance;
+
+        if (highLng < minLng || lowLng > maxLng || highLat < minLat || lowLat > maxLat) {
+            return true;
+        }
+
+        // a segment running wholly inside a zone is nowhere near its edges
+        if (isInAnyZone(startLng, startLat) || isInAnyZone(endLng, endLat)) {
+            return false;
+        }
+
+        double clearanceSquared = clearance * clearance;
+        for (int e = 0; e < x1.length; e++) {
+            if (Math.max(x1[e], x2[e]) < lowLng || Math.min(x1[e], x2[e]) > highLng
+                    || Math.max(y1[e], y2[e]) < lowLat || Math.min(y1[e], y2[e]) > highLat) {
+                continue;
+            }
+            if (segmentDistanceSquared(startLng, startLat, endLng, endLat, e) <= clearanceSquared) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // true when the point is in a zone or within clearance of one. unlike isCorridorClear only the
+    // cells around the point are looked at, so it stays cheap enough to call for every node
+    public boolean isNearAnyZone(double lng, double lat, double clearance) {
+        if (columns == 0 || lng < minLng - clearance || lng > maxLng + clearance
+                || lat < minLat - clearance || lat > maxLat + clearance) {
+            return false;
+        }
+
+        return isInAnyZone(lng, lat) || isNearAnyEdge(lng, lat, clearance);
+    }
+
+    // true when the point is in a zone and no zone edge comes within depth of it, so everywhere
+    // within depth of the point is inside that zone as well
+    public boolean isDeepInAnyZone(double lng, double lat, double depth) {
+        return isInAnyZone(lng, lat) && !isNearAnyEdge(lng, lat, depth);
+    }
+
+    private boolean isNearAnyEdge(double lng, double lat, double clearance) {
+        double clearanceSquared = clearance * clearance;
+        int firstColumn = column(lng - clearance), lastColumn = column(lng + clearance);
+        int firstRow = row(lat - clearance), lastRow = row(lat + clearance);
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                for (int e : cellEdges[r * columns + c]) {
+                    if (Line2D.ptSegDistSq(x1[e], y1[e], x2[e], y2[e], lng, lat) <= clearanceSquared) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private double segmentDistanceSquared(double startLng, double startLat, double endLng, double endLat, int e) {
+        if (Line2D.linesIntersect(startLng, startLat, endLng, endLat, x1[e], y1[e], x2[e], y2[e])) {
+            return 0;
+        }
+        return Math.min(
+                Math.min(Line2D.ptSegDistSq(startLng, startLat, endLng, endLat, x1[e], y1[e]),
+                        Line2D.ptSegDistSq(startLng, startLat, endLng, endLat, x2[e], y2[e])),
+                Math.min(Line2D.ptSegDistSq(x1[e], y1[e], x2[e], y2[e], startLng, startLat),
+                        Line2D.ptSegDistSq(x1[e], y1[e], x2[e], y2[e], endLng, endLat)));
+    }
+
+    public boolean isInAnyZone(double lng, double lat) {
+        if (columns == 0 || lng < minLng - EPSILON || lng > maxLng + EPSILON
+                || lat < minLat - EPSILON || lat > maxLat + EPSILON) {
+            return false;
+        }
+
+        for (int z : cellZones[row(lat) * columns + column(lng)]) {
+            if (regions[z].contains(lng, lat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addToCells(IntListBuilder cells, int value, double lowLng, double lowLat, double highLng, double highLat) {
+        int firstColumn = column(lowLng), lastColumn = column(highLng);
+        int firstRow = row(lowLat), lastRow = row(highLat);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                cells.add(r * columns + c, value);
+            }
+        }
+    }
+
+    private int column(double lng) {
+        return Math.clamp((long) Math.floor((lng - minLng) / cellSize), 0, columns - 1);
+    }
+
+    private int row(double lat) {
+        return Math.clamp((long) Math.floor((lat - minLat) / cellSize), 0, rows - 1);
+    }
+
+    // growable int lists per cell, only used while building the grid
+    private static final class IntListBuilder {
+        private static final int[] EMPTY = new int[0];
+
+        private final int[][] lists;
+        private final int[] sizes;
+
+        IntListBuilder(int cells) {
+            lists = new int[cells][];
+            sizes = new int[cells];
+        }
+
+        void add(int cell, int value) {
+            if (lists[cell] == null) {
+                lists[cell] = new int[4];
+            } else if (sizes[cell] == lists[cell].length) {
+                lists[cell] = Arrays.copyOf(lists[cell], sizes[cell] * 2);
+            }
+            lists[cell][sizes[cell]++] = value;
+        }
+
+        int[][] build() {
+            int[][] result = new int[lists.length][];
+            for (int i = 0; i < lists.length; i++) {
+                result[i] = lists[i] == null ? EMPTY : Arrays.copyOf(lists[i], sizes[i]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+// anytime a* (ARA*). the first pass is weighted a*, with the straight-line estimate inflated so
+// the search heads for the goal and finds some path quickly. each later pass shrinks the
+// inflation and carries on from the nodes the last one left, only re-expanding those whose
+// g-score has since come down, until the path is known to be within the factor asked for or the
+// time budget runs out. every pass also works out how far from the shortest the path can still be
+public final class AnytimeSearch {
+
+    // the first pass inflates the estimate by at least this much
+    private static final double INITIAL_INFLATION = 3.0;
+    private static final double NO_PATH = Double.MAX_VALUE;
+    // the clock is read every 64 expansions, well under a millisecond of searching
+    private static final int DEADLINE_CHECK_MASK = 0x3F;
+
+    private final ZoneIndex zones;
+    private final LngLat goal;
+    private final long deadline;
+    private final SearchNodes nodes;
+    private final NodeHeap open;
+    // nodes whose g-score came down after they were expanded this pass, left for the next one
+    private final List<Integer> inconsistent = new ArrayList<>();
+    // the pass each node was expanded in (0 for not yet), and whether it's waiting in inconsistent
+    private int[] expandedIn = new int[1024];
+    private boolean[] waiting = new boolean[1024];
+
+    private int pass = 1;
+    private double inflation;
+    private int expansions;
+
+    // the best path's last move, kept apart from the nodes since its end can still be moved
+    private double goalG = NO_PATH;
+    private int goalParent = SearchNodes.NONE;
+    private double goalLng;
+    private double goalLat;
+
+    private AnytimeSearch(LngLat start, LngLat goal, ZoneIndex zones, Duration budget) {
+        this.zones = zones;
+        this.goal = goal;
+        this.deadline = System.nanoTime() + budget.toNanos();
+        this.nodes = new SearchNodes(start, SearchNodes.SEARCH_RESOLUTION);
+        this.open = new NodeHeap(nodes);
+    }
+
+    // a path from start to within a move of goal, as short as the budget allows and no more than
+    // factor times the shortest if it can be found in time. the budget counts from the start, the
+    // first pass included, so an empty result means either that the goal can't be reached or
+    // that no path turned up within the budget or maxExpansions
+    public static BoundedPath search(LngLat start, LngLat goal, ZoneIndex zones, double factor, Duration budget,
+                                     int maxExpansions) {
+        if (factor < 1) {
+            throw new IllegalArgumentException("Suboptimality factor must be at least 1, got " + factor);
+        }
+        return new AnytimeSearch(start, goal, zones, budget).run(start, factor, maxExpansions);
+    }
+
+    private BoundedPath run(LngLat start, double factor, int maxExpansions) {
+        if (distance(start.lng(), start.lat()) < Moves.MOVE_DISTANCE) {
+            return new BoundedPath(List.of(start), 1.0);
+        }
+
+        inflation = Math.max(factor, INITIAL_INFLATION);
+        int startNode = add(nodes.key(start.lng(), start.lat()), start.lng(), start.lat());
+        nodes.update(startNode, 0.0, inflation * distance(start.lng(), start.lat()), SearchNodes.NONE);
+        open.push(startNode);
+
+        double bound = Double.POSITIVE_INFINITY;
+        while (true) {
+            boolean finished = improve(maxExpansions);
+            if (goalG == NO_PATH) {
+                return BoundedPath.NONE;
+            }
+            // a pass cut short says nothing more about the bound, but its path is no longer
+            // than the last one's and so still within it
+            if (finished) {
+                bound = Math.min(bound, bound());
+            }
+            if (!finished || bound <= factor || System.nanoTime() >= deadline) {
+                return new BoundedPath(path(), bound);
+            }
+
+            // halving the inflation over the bare estimate each pass gets close to the shortest
+            // path in a few passes while still leaving each one plenty to reuse
+            inflation = Math.max(factor, 1 + (inflation - 1) / 2);
+            nextPass();
+        }
+    }
+
+    // expands nodes until nothing queued could lead to a path shorter than the best one by more
+    // than the inflation. false if it ran out of expansions or time first
+    private boolean improve(int maxExpansions) {
+        while (!open.isEmpty() && goalG > nodes.f(open.peek())) {
+            if (++expansions > maxExpansions) {
+                return false;
+            }
+            if ((expansions & SearchNodes.CANCEL_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Anytime search cancelled");
+            }
+            if ((expansions & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() >= deadline) {
+                return false;
+            }
+
+            int current = open.pop();
+            expandedIn[current] = pass;
+            expand(current);
+        }
+        return true;
+    }
+
+    private void expand(int current) {
+        double currentLng = nodes.lng(current);
+        double currentLat = nodes.lat(current);
+        double tentativeGScore = nodes.g(current) + Moves.MOVE_DISTANCE;
+
+        for (int direction = 0; direction < Moves.DIRECTIONS; direction++) {
+            double neighborLng = currentLng + Moves.lngOffset(direction);
+            double neighborLat = currentLat + Moves.latOffset(direction);
+            long neighborKey = nodes.key(neighborLng, neighborLat);
+
+            int neighbor = nodes.find(neighborKey);
+            if (neighbor != SearchNodes.NONE && tentativeGScore >= nodes.g(neighbor)) {
+                continue;
+            }
+
+            if (zones.isMoveInvalid(currentLng, currentLat, neighborLng, neighborLat)) {
+                continue;
+            }
+
+            // a node that has been expanded already has children one move from where it is, so a
+            // cheaper arrival somewhere else in its cell gets a fresh node in its place. closed
+            // this pass, the fresh node waits for the next one
+            boolean wait;
+            if (neighbor == SearchNodes.NONE) {
+                neighbor = add(neighborKey, neighborLng, neighborLat);
+                wait = false;
+            } else if (expandedIn[neighbor] != 0) {
+                wait = expandedIn[neighbor] == pass;
+                neighbor = add(neighborKey, neighborLng, neighborLat);
+            } else {
+                wait = waiting[neighbor];
+            }
+
+            double distance = distance(neighborLng, neighborLat);
+            nodes.update(neighbor, neighborLng, neighborLat, tentativeGScore,
+                    tentativeGScore + inflation * distance, current);
+            if (distance < Moves.MOVE_DISTANCE && tentativeGScore < goalG) {
+                goalG = tentativeGScore;
+                goalParent = current;
+                goalLng = neighborLng;
+                goalLat = neighborLat;
+            }
+
+            if (!wait) {
+                open.push(neighbor);
+            } else if (!waiting[neighbor]) {
+                waiting[neighbor] = true;
+                inconsistent.add(neighbor);
+            }
+        }
+    }
+
+    // the nodes left waiting go back on the queue, and everything queued is re-scored with the
+    // new inflation
+    private void nextPass() {
+        pass++;
+        for (int id : inconsistent) {
+            waiting[id] = false;
+            open.push(id);
+        }
+        inconsistent.clear();
+
+        open.rescore((lng, lat) -> inflation * distance(lng, lat));
+    }
+
+    // any shorter path would have to pass through a node still queued or waiting, so it can't be
+    // shorter than the least g-score plus distance left among them. a path only has to end
+    // within a move of the goal, so a move less than the straight line is all that's certain
+    private double bound() {
+        double least = goalG;
+        for (int id = 0; id < nodes.size(); id++) {
+            if (open.contains(id)) {
+                least = Math.min(least, nodes.g(id) + leastToGo(id));
+            }
+        }
+        for (int id : inconsistent) {
+            least = Math.min(least, nodes.g(id) + leastToGo(id));
+        }
+        return Math.max(1.0, Math.min(inflation, goalG / least));
+    }
+
+    private double leastToGo(int id) {
+        return Math.max(0.0, distance(nodes.lng(id), nodes.lat(id)) - Moves.MOVE_DISTANCE);
+    }
+
+    private List<LngLat> path() {
+        List<LngLat> path = new ArrayList<>(nodes.path(goalParent));
+        path.add(new LngLat(goalLng, goalLat));
+        return path;
+    }
+
+    private int add(long key, double lng, double lat) {
+        int id = nodes.add(key, lng, lat);
+        if (id >= expandedIn.length) {
+            expandedIn = Arrays.copyOf(expandedIn, expandedIn.length * 2);
+            waiting = Arrays.copyOf(waiting, waiting.length * 2);
+        }
+        return id;
+    }
+
+    private double distance(double lng, double lat) {
+        return Moves.distance(lng, lat, goal);
+    }
+}
@@ -0,0 +1,251 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+// a* from both ends of a leg at once, each side searching towards the other's starting point.
+// a leg only has to end within a move of the goal, so the two sides have met as soon as a node
+// from each is closed within a move of the other: the goal's side of the path is then flown
+// backwards from the start's side, landing within a move of the goal just as calculateClose
+// asks. the 16 moves all have an opposite, so that backwards half is made of real moves too.
+// both sides share one averaged estimate so they can stop as soon as they've met. the result is
+// approximate: the sides meet up to a move apart rather than on a shared node, so the path is
+// now and then a move longer than flat a*'s, and PathService caches it apart from exact paths
+public final class BidirectionalSearch {
+
+    // the same merging of nearby positions as PathService's a*
+    private static final double COS_INCREMENT = Math.cos(Math.toRadians(Moves.ANGLE_INCREMENT));
+    private static final double SIN_INCREMENT = Math.sin(Math.toRadians(Moves.ANGLE_INCREMENT));
+    private static final double HALF_ROOT_TWO = Math.sqrt(0.5);
+
+    private final ZoneIndex zones;
+    private final LngLat start;
+    private final LngLat goal;
+    private final Side forward;
+    private final Side backward;
+
+    // the shortest joined path found so far, and its length
+    private double best = Double.MAX_VALUE;
+    private List<LngLat> bestPath = List.of();
+
+    private BidirectionalSearch(LngLat start, LngLat goal, ZoneIndex zones) {
+        this.zones = zones;
+        this.start = start;
+        this.goal = goal;
+        this.forward = new Side(start, goal, false);
+        this.backward = new Side(goal, start, true);
+    }
+
+    // the path from start to within a move of goal, or empty if the sides didn't meet anywhere
+    // their halves could be joined within maxExpansions between them
+    public static List<LngLat> search(LngLat start, LngLat goal, ZoneIndex zones, int maxExpansions) {
+        return new BidirectionalSearch(start, goal, zones).run(maxExpansions);
+    }
+
+    private List<LngLat> run(int maxExpansions) {
+        int expansions = 0;
+        while (!forward.open.isEmpty() && !backward.open.isEmpty() && ++expansions <= maxExpansions) {
+            if ((expansions & SearchNodes.CANCEL_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Bidirectional search cancelled");
+            }
+
+            // any path not yet found costs at least the two lowest keys together. the two sides'
+            // estimates are exact opposites, so they cancel along any path and need no offset here
+            if (best <= forward.lowestF() + backward.lowestF()) {
+                break;
+            }
+
+            // the side with the smaller frontier is the cheaper one to push on
+            Side side = forward.open.size() <= backward.open.size() ? forward : backward;
+            Side other = side == forward ? backward : forward;
+
+            int current = side.open.pop();
+            side.nodes.close(current);
+            meet(side, current, other);
+            side.expand(current);
+        }
+
+        return bestPath;
+    }
+
+    // every closed node on the other side within a move of this one is a way through
+    private void meet(Side side, int node, Side other) {
+        double lng = side.nodes.lng(node);
+        double lat = side.nodes.lat(node);
+        long bucket = other.buckets.key(lng, lat);
+        int x = Lattice.x(bucket);
+        int y = Lattice.y(bucket);
+
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                int id = other.bucketHeads.get(Lattice.pack(x + dx, y + dy), SearchNodes.NONE);
+                for (; id != SearchNodes.NONE; id = other.nextInBucket[id]) {
+                    if (!other.nodes.isClosed(id)
+                            || Moves.distance(lng, lat, other.nodes.lng(id), other.nodes.lat(id)) >= Moves.MOVE_DISTANCE) {
+                        continue;
+                    }
+                    double through = side.nodes.g(node) + other.nodes.g(id);
+                    if (through >= best) {
+                        continue;
+                    }
+                    List<LngLat> path = side == forward ? join(node, id) : join(id, node);
+                    if (!path.isEmpty()) {
+                        best = through;
+                        bestPath = path;
+                    }
+                }
+            }
+        }
+    }
+
+    // the start's half as searched, then the goal's half flown in reverse from where it ended.
+    // the two halves meet up to a move apart, so every reversed move is checked again
+    private List<LngLat> join(int forwardNode, int backwardNode) {
+        List<LngLat> path = new ArrayList<>(forward.nodes.path(forwardNode));
+        List<LngLat> fromGoal = backward.nodes.path(backwardNode);
+
+        double lng = path.getLast().lng();
+        double lat = path.getLast().lat();
+        for (int i = fromGoal.size() - 1; i > 0; i--) {
+            int move = opposite(direction(fromGoal.get(i - 1), fromGoal.get(i)));
+            double nextLng = lng + Moves.lngOffset(move);
+            double nextLat = lat + Moves.latOffset(move);
+            if (zones.isMoveInvalid(lng, lat, nextLng, nextLat)) {
+                return List.of();
+            }
+            lng = nextLng;
+            lat = nextLat;
+            path.add(new LngLat(lng, lat));
+        }
+
+        if (Moves.distance(lng, lat, goal.lng(), goal.lat()) >= Moves.MOVE_DISTANCE) {
+            return List.of();
+        }
+        return path;
+    }
+
+    // which of the 16 moves takes from one position to the other
+    private static int direction(LngLat from, LngLat to) {
+        int best = 0;
+        double bestError = Double.MAX_VALUE;
+        for (int move = 0; move < Moves.DIRECTIONS; move++) {
+            double error = Moves.distance(from.lng() + Moves.lngOffset(move), from.lat() + Moves.latOffset(move),
+                    to.lng(), to.lat());
+            if (error < bestError) {
+                best = move;
+                bestError = error;
+            }
+        }
+        return best;
+    }
+
+    // the distance covered flying only the two compass moves either side of the straight line,
+    // the least any path of moves can take. up to 2% more than straight-line distance, which is
+    // the difference between the two sides agreeing on a meeting early and both flooding
+    // everything a straight-line estimate can't rule out
+    private static double compassDistance(double lng, double lat, LngLat point) {
+        // folded into the first eighth of the compass, where the moves either side are east,
+        // the first move north of east, and north-east
+        double x = Math.abs(lng - point.lng());
+        double y = Math.abs(lat - point.lat());
+        if (y > x) {
+            double swap = x;
+            x = y;
+            y = swap;
+        }
+
+        if (y * COS_INCREMENT <= x * SIN_INCREMENT) {
+            return x + y * (1 - COS_INCREMENT) / SIN_INCREMENT;
+        }
+        return (x - y) / (COS_INCREMENT - SIN_INCREMENT)
+                + (COS_INCREMENT * y - SIN_INCREMENT * x) / (HALF_ROOT_TWO * (COS_INCREMENT - SIN_INCREMENT));
+    }
+
+    private static int opposite(int move) {
+        return (move + Moves.DIRECTIONS / 2) % Moves.DIRECTIONS;
+    }
+
+    // one direction's a*. both sides key their nodes from the leg's start so their cells line up,
+    // and every node is also filed in a move-sized bucket so the other side can find it nearby
+    private final class Side {
+        private final LngLat from;
+        private final LngLat towards;
+        // the goal's side searches the moves it would fly in reverse
+        private final boolean reversed;
+        private final SearchNodes nodes;
+        private final NodeHeap open;
+        private final Lattice buckets;
+        private final LongIntMap bucketHeads = new LongIntMap();
+        private int[] nextInBucket = new int[1024];
+
+        private Side(LngLat from, LngLat towards, boolean reversed) {
+            this.from = from;
+            this.towards = towards;
+            this.reversed = reversed;
+            this.nodes = new SearchNodes(start, SearchNodes.SEARCH_RESOLUTION);
+            this.open = new NodeHeap(nodes);
+            this.buckets = new Lattice(start, Moves.MOVE_DISTANCE);
+
+            int first = add(nodes.key(from.lng(), from.lat()), from.lng(), from.lat());
+            nodes.update(first, 0.0, estimate(from.lng(), from.lat()), SearchNodes.NONE);
+            open.push(first);
+        }
+
+        private double lowestF() {
+            return nodes.f(open.peek());
+        }
+
+        private void expand(int current) {
+            double currentLng = nodes.lng(current);
+            double currentLat = nodes.lat(current);
+            double tentativeGScore = nodes.g(current) + Moves.MOVE_DISTANCE;
+
+            for (int direction = 0; direction < Moves.DIRECTIONS; direction++) {
+                double neighborLng = currentLng + Moves.lngOffset(direction);
+                double neighborLat = currentLat + Moves.latOffset(direction);
+                long neighborKey = nodes.key(neighborLng, neighborLat);
+
+                int neighbor = nodes.find(neighborKey);
+                if (neighbor != SearchNodes.NONE && (nodes.isClosed(neighbor) || tentativeGScore >= nodes.g(neighbor))) {
+                    continue;
+                }
+
+                boolean invalid = reversed
+                        ? zones.isMoveInvalid(neighborLng, neighborLat, currentLng, currentLat)
+                        : zones.isMoveInvalid(currentLng, currentLat, neighborLng, neighborLat);
+                if (invalid) {
+                    continue;
+                }
+
+                if (neighbor == SearchNodes.NONE) {
+                    neighbor = add(neighborKey, neighborLng, neighborLat);
+                }
+                nodes.update(neighbor, neighborLng, neighborLat, tentativeGScore,
+                        tentativeGScore + estimate(neighborLng, neighborLat), current);
+                open.push(neighbor);
+            }
+        }
+
+        // half of how much nearer the far end is than this side's own, the opposite of the other
+        // side's estimate. the two together never promise more than a path really costs
+        private double estimate(double lng, double lat) {
+            return (compassDistance(lng, lat, towards) - compassDistance(lng, lat, from)) / 2;
+        }
+
+        private int add(long key, double lng, double lat) {
+            int id = nodes.add(key, lng, lat);
+            if (id >= nextInBucket.length) {
+                nextInBucket = Arrays.copyOf(nextInBucket, nextInBucket.length * 2);
+            }
+            long bucket = buckets.key(lng, lat);
+            nextInBucket[id] = bucketHeads.get(bucket, SearchNodes.NONE);
+            bucketHeads.put(bucket, id);
+            return id;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+
+import java.util.List;
+
+// a path along with how far from the shortest it might be: it takes at most bound times the
+// moves of the path flat a* would find (1 when it is that path). an empty path has no bound
+public record BoundedPath(List<LngLat> path, double bound) {
+
+    public static final BoundedPath NONE = new BoundedPath(List.of(), Double.POSITIVE_INFINITY);
+
+    public boolean isWithin(double factor) {
+        return bound <= factor;
+    }
+}
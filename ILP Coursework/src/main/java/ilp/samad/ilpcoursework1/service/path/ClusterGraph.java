@@ -0,0 +1,298 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+// the abstract graph for hierarchical path finding (HPA*). the area around the no-fly zones is
+// cut into square clusters, every free stretch of border between two clusters gets an entrance
+// or two, and the moves between entrances of the same cluster are searched for once up front.
+// a long leg is then planned on this small graph, and only the stretches between the entrances
+// it passes through need searching move by move. searches between entrances are kept inside
+// their cluster, so building the graph costs a handful of small searches per cluster
+public final class ClusterGraph {
+
+    // paths from one start to each of several targets without leaving the area, missing or
+    // empty where there is none
+    @FunctionalInterface
+    public interface LegSearch {
+        Map<LngLat, List<LngLat>> paths(LngLat start, List<LngLat> targets, SearchArea area);
+    }
+
+    // how far apart border points are checked when looking for free stretches
+    private static final double SAMPLE_SPACING = Moves.MOVE_DISTANCE / 2;
+    // free stretches longer than this many samples get an entrance near each end, shorter ones
+    // one in the middle
+    private static final int LONG_STRETCH = 12;
+    // how far in from the end of a long stretch its entrances sit, in samples
+    private static final int STRETCH_INSET = 2;
+
+    private final ZoneIndex zones;
+    private final double clusterSize;
+    private final double originLng;
+    private final double originLat;
+    private final int columns;
+    private final int rows;
+
+    private final List<LngLat> entrances = new ArrayList<>();
+    // the one or two clusters each entrance borders
+    private final List<int[]> entranceClusters = new ArrayList<>();
+    // the entrances on each cluster's borders
+    private final List<List<Integer>> clusterEntrances = new ArrayList<>();
+    // entrances on the outer edge of the grid, where legs from outside it join
+    private final List<Integer> perimeter = new ArrayList<>();
+    // edges.get(i) maps every entrance reachable within i's clusters to the moves it takes
+    private final List<Map<Integer, Integer>> edges;
+
+    public ClusterGraph(ZoneIndex zones, double clusterSize, LegSearch search) {
+        this.zones = zones;
+        this.clusterSize = clusterSize;
+
+        if (zones.isEmpty()) {
+            originLng = originLat = 0;
+            columns = rows = 0;
+            edges = List.of();
+            return;
+        }
+
+        // one ring of clusters clear of every zone, so legs from outside can join the grid
+        // anywhere around its edge
+        originLng = zones.minLng() - clusterSize;
+        originLat = zones.minLat() - clusterSize;
+        columns = (int) Math.ceil((zones.maxLng() + clusterSize - originLng) / clusterSize);
+        rows = (int) Math.ceil((zones.maxLat() + clusterSize - originLat) / clusterSize);
+        for (int i = 0; i < columns * rows; i++) {
+            clusterEntrances.add(new ArrayList<>());
+        }
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c + 1 < columns; c++) {
+                addBorderEntrances(originLng + (c + 1) * clusterSize, originLat + r * clusterSize, 0, 1,
+                        cluster(c, r), cluster(c + 1, r));
+            }
+        }
+        for (int r = 0; r + 1 < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                addBorderEntrances(originLng + c * clusterSize, originLat + (r + 1) * clusterSize, 1, 0,
+                        cluster(c, r), cluster(c, r + 1));
+            }
+        }
+
+        double top = originLat + rows * clusterSize;
+        double right = originLng + columns * clusterSize;
+        for (int c = 0; c < columns; c++) {
+            double lng = originLng + (c + 0.5) * clusterSize;
+            addPerimeterEntrance(new LngLat(lng, originLat), cluster(c, 0));
+            addPerimeterEntrance(new LngLat(lng, top), cluster(c, rows - 1));
+        }
+        for (int r = 0; r < rows; r++) {
+            double lat = originLat + (r + 0.5) * clusterSize;
+            addPerimeterEntrance(new LngLat(originLng, lat), cluster(0, r));
+            addPerimeterEntrance(new LngLat(right, lat), cluster(columns - 1, r));
+        }
+
+        // every entrance's searches are independent, so the graph is built across cores
+        edges = IntStream.range(0, entrances.size()).parallel()
+                .mapToObj(entrance -> connect(entrance, search))
+                .toList();
+    }
+
+    public ZoneIndex zones() {
+        return zones;
+    }
+
+    public int entranceCount() {
+        return entrances.size();
+    }
+
+    // the entrances a leg from start to goal should pass through, in order, or null when the
+    // graph has nothing to offer (no zones, or no way through it from start to goal)
+    public List<LngLat> waypoints(LngLat start, LngLat goal, LegSearch search) {
+        if (columns == 0) {
+            return null;
+        }
+
+        Map<Integer, Integer> fromStart = joinMoves(start, search);
+        // legs are near enough symmetric that the moves out from the goal stand in for the moves in
+        Map<Integer, Integer> intoGoal = joinMoves(goal, search);
+        if (fromStart.isEmpty() || intoGoal.isEmpty()) {
+            return null;
+        }
+
+        int count = entrances.size();
+        int startNode = count;
+        int goalNode = count + 1;
+
+        double[] g = new double[count + 2];
+        int[] parent = new int[count + 2];
+        boolean[] closed = new boolean[count + 2];
+        Arrays.fill(g, Double.MAX_VALUE);
+        Arrays.fill(parent, -1);
+
+        // a* over the entrances, with straight-line moves to the goal as the heuristic
+        PriorityQueue<double[]> open = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+        g[startNode] = 0;
+        open.add(new double[]{movesBetween(start, goal), startNode});
+
+        while (!open.isEmpty()) {
+            int node = (int) open.poll()[1];
+            if (closed[node]) {
+                continue;
+            }
+            closed[node] = true;
+            if (node == goalNode) {
+                break;
+            }
+
+            Map<Integer, Integer> out = node == startNode ? fromStart : edges.get(node);
+            for (Map.Entry<Integer, Integer> edge : out.entrySet()) {
+                relax(node, edge.getKey(), edge.getValue(), g, parent, open, goal);
+            }
+            Integer finalLeg = node == startNode ? null : intoGoal.get(node);
+            if (finalLeg != null) {
+                relax(node, goalNode, finalLeg, g, parent, open, goal);
+            }
+        }
+
+        if (parent[goalNode] == -1) {
+            return null;
+        }
+
+        List<LngLat> waypoints = new ArrayList<>();
+        for (int node = parent[goalNode]; node != startNode; node = parent[node]) {
+            waypoints.addFirst(entrances.get(node));
+        }
+        return waypoints;
+    }
+
+    private void relax(int from, int to, int moves, double[] g, int[] parent, PriorityQueue<double[]> open,
+                       LngLat goal) {
+        double tentative = g[from] + moves;
+        if (tentative >= g[to]) {
+            return;
+        }
+        g[to] = tentative;
+        parent[to] = from;
+        double h = to < entrances.size() ? movesBetween(entrances.get(to), goal) : 0;
+        open.add(new double[]{tentative + h, to});
+    }
+
+    // how a point off the graph joins it: through the entrances of its own cluster, or from
+    // outside the grid through any edge entrance it can fly straight to
+    private Map<Integer, Integer> joinMoves(LngLat point, LegSearch search) {
+        int cluster = clusterAt(point);
+        if (cluster >= 0) {
+            return movesTo(point, clusterEntrances.get(cluster), search, clusterArea(cluster));
+        }
+        List<Integer> candidates = perimeter.stream()
+                .filter(entrance -> zones.isCorridorClear(point.lng(), point.lat(),
+                        entrances.get(entrance).lng(), entrances.get(entrance).lat(), Moves.MOVE_DISTANCE))
+                .toList();
+        List<LngLat> targets = candidates.stream().map(entrances::get).toList();
+        return movesTo(point, candidates, search, SearchArea.around(zones, point, targets));
+    }
+
+    // an entrance on the border between two clusters is searched from once for each, so that
+    // every edge stays inside a cluster. the cheaper of the two is kept for an entrance both share
+    private Map<Integer, Integer> connect(int from, LegSearch search) {
+        Map<Integer, Integer> moves = new HashMap<>();
+        for (int cluster : entranceClusters.get(from)) {
+            List<Integer> neighbours = clusterEntrances.get(cluster).stream().filter(to -> to != from).toList();
+            movesTo(entrances.get(from), neighbours, search, clusterArea(cluster))
+                    .forEach((to, count) -> moves.merge(to, count, Math::min));
+        }
+        return moves;
+    }
+
+    private Map<Integer, Integer> movesTo(LngLat start, List<Integer> targets, LegSearch search, SearchArea area) {
+        Map<Integer, Integer> moves = new HashMap<>();
+        if (targets.isEmpty()) {
+            return moves;
+        }
+
+        Map<LngLat, List<LngLat>> paths = search.paths(start, targets.stream().map(entrances::get).toList(), area);
+        for (int target : targets) {
+            List<LngLat> path = paths.get(entrances.get(target));
+            if (path != null && !path.isEmpty()) {
+                moves.put(target, path.size() - 1);
+            }
+        }
+        return moves;
+    }
+
+    private SearchArea clusterArea(int cluster) {
+        return SearchArea.cluster(originLng + (cluster % columns) * clusterSize,
+                originLat + (cluster / columns) * clusterSize, clusterSize);
+    }
+
+    // walks along a border in samples and puts entrances on each stretch that isn't in a zone
+    private void addBorderEntrances(double lng, double lat, double lngStep, double latStep, int first, int second) {
+        int samples = (int) Math.round(clusterSize / SAMPLE_SPACING);
+        int stretchStart = -1;
+
+        for (int k = 0; k <= samples; k++) {
+            boolean free = k < samples && !zones.isInAnyZone(sampleLng(lng, lngStep, k), sampleLat(lat, latStep, k));
+            if (free && stretchStart < 0) {
+                stretchStart = k;
+            } else if (!free && stretchStart >= 0) {
+                int stretchEnd = k - 1;
+                if (stretchEnd - stretchStart + 1 > LONG_STRETCH) {
+                    addEntrance(lng, lat, lngStep, latStep, stretchStart + STRETCH_INSET, first, second);
+                    addEntrance(lng, lat, lngStep, latStep, stretchEnd - STRETCH_INSET, first, second);
+                } else {
+                    addEntrance(lng, lat, lngStep, latStep, (stretchStart + stretchEnd) / 2, first, second);
+                }
+                stretchStart = -1;
+            }
+        }
+    }
+
+    private void addEntrance(double lng, double lat, double lngStep, double latStep, int sample, int first, int second) {
+        int id = entrances.size();
+        entrances.add(new LngLat(sampleLng(lng, lngStep, sample), sampleLat(lat, latStep, sample)));
+        entranceClusters.add(new int[]{first, second});
+        clusterEntrances.get(first).add(id);
+        clusterEntrances.get(second).add(id);
+    }
+
+    private void addPerimeterEntrance(LngLat point, int cluster) {
+        int id = entrances.size();
+        entrances.add(point);
+        entranceClusters.add(new int[]{cluster});
+        clusterEntrances.get(cluster).add(id);
+        perimeter.add(id);
+    }
+
+    private static double sampleLng(double lng, double lngStep, int sample) {
+        return lng + lngStep * (sample + 0.5) * SAMPLE_SPACING;
+    }
+
+    private static double sampleLat(double lat, double latStep, int sample) {
+        return lat + latStep * (sample + 0.5) * SAMPLE_SPACING;
+    }
+
+    private int cluster(int column, int row) {
+        return row * columns + column;
+    }
+
+    private int clusterAt(LngLat point) {
+        int column = (int) Math.floor((point.lng() - originLng) / clusterSize);
+        int row = (int) Math.floor((point.lat() - originLat) / clusterSize);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return -1;
+        }
+        return cluster(column, row);
+    }
+
+    private static double movesBetween(LngLat a, LngLat b) {
+        return Math.hypot(a.lng() - b.lng(), a.lat() - b.lat()) / Moves.MOVE_DISTANCE;
+    }
+}
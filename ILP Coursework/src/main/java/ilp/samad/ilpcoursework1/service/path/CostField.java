@@ -0,0 +1,273 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+// how many moves it takes to get from anywhere around a fixed goal (a service point) to within
+// reach of it. the 16 moves can be reversed, so a breadth first search outward from the goal
+// gives every cell its distance back. the search is only grown as far as queries have needed
+// so far and picks up where it left off on the next one
+public final class CostField {
+
+    public static final int UNKNOWN = -1;
+    // a descent that hasn't arrived after this many moves more than the field promised gives up
+    private static final int DESCENT_SLACK = 4;
+
+    private final LngLat goal;
+    private final ZoneIndex zones;
+    private final int maxNodes;
+    // node ids are handed out in the order cells are reached, so they double as the search queue
+    private final SearchNodes nodes;
+    private int expanded;
+
+    public CostField(LngLat goal, ZoneIndex zones, double resolution, int maxNodes) {
+        this.goal = goal;
+        this.zones = zones;
+        this.maxNodes = maxNodes;
+        this.nodes = new SearchNodes(goal, resolution);
+
+        int start = nodes.add(nodes.key(goal.lng(), goal.lat()), goal.lng(), goal.lat());
+        nodes.update(start, 0, 0, SearchNodes.NONE);
+
+        // anywhere within a move of the goal already counts as arrived, so that whole disc is
+        // filled in at cost 0 before the search moves outwards
+        for (int id = 0; id < nodes.size(); id++) {
+            expand(id, true);
+        }
+    }
+
+    public LngLat goal() {
+        return goal;
+    }
+
+    public ZoneIndex zones() {
+        return zones;
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    // moves from start until close to the goal, or UNKNOWN if the field can't reach that far
+    public synchronized int moves(LngLat start) {
+        if (isClose(start.lng(), start.lat())) {
+            return 0;
+        }
+        int id = settle(start);
+        return id == SearchNodes.NONE ? UNKNOWN : (int) nodes.g(id);
+    }
+
+    // grows the field until every cell within this many moves of the goal has been reached, or
+    // until it is full
+    public synchronized void growTo(int moves) {
+        while (canGrow() && layer() <= moves) {
+            growLayer();
+        }
+    }
+
+    // every cell reached so far and the moves from it to the goal
+    public synchronized void forEachCell(CellVisitor visitor) {
+        for (int id = 0; id < nodes.size(); id++) {
+            visitor.visit(nodes.lng(id), nodes.lat(id), (int) nodes.g(id));
+        }
+    }
+
+    @FunctionalInterface
+    public interface CellVisitor {
+        void visit(double lng, double lat, int moves);
+    }
+
+    // a path from start to within reach of the goal, or empty if the field can't give a valid
+    // one from there. both ways of reading a path off the field are tried and the shorter is kept
+    public synchronized List<LngLat> path(LngLat start) {
+        if (isClose(start.lng(), start.lat())) {
+            return List.of(start);
+        }
+        int id = settle(start);
+        if (id == SearchNodes.NONE) {
+            return List.of();
+        }
+
+        List<LngLat> followed = follow(start, id);
+        List<LngLat> descended = descend(start, (int) nodes.g(id) + DESCENT_SLACK);
+        if (followed.isEmpty()) return descended;
+        if (descended.isEmpty()) return followed;
+        return descended.size() < followed.size() ? descended : followed;
+    }
+
+    // the parent links from start's cell, shifted so the path begins exactly at start
+    private List<LngLat> follow(LngLat start, int id) {
+        double lngShift = start.lng() - nodes.lng(id);
+        double latShift = start.lat() - nodes.lat(id);
+        List<LngLat> path = new ArrayList<>((int) nodes.g(id) + 2);
+        path.add(start);
+
+        double lng = start.lng();
+        double lat = start.lat();
+        for (int current = nodes.parent(id); current != SearchNodes.NONE; current = nodes.parent(current)) {
+            double nextLng = nodes.lng(current) + lngShift;
+            double nextLat = nodes.lat(current) + latShift;
+            // the shift can clip the corner of a zone the unshifted path only just missed
+            if (zones.isMoveInvalid(lng, lat, nextLng, nextLat)) {
+                return List.of();
+            }
+            path.add(new LngLat(nextLng, nextLat));
+            lng = nextLng;
+            lat = nextLat;
+
+            if (isClose(lng, lat)) {
+                return path;
+            }
+        }
+        return List.of();
+    }
+
+    // greedy descent from the real start: every step takes the move landing in the cheapest
+    // cell, ties going to whichever lands nearest the goal
+    private List<LngLat> descend(LngLat start, int maxMoves) {
+        List<LngLat> path = new ArrayList<>(maxMoves + 1);
+        path.add(start);
+
+        double lng = start.lng();
+        double lat = start.lat();
+        while (path.size() <= maxMoves) {
+            int bestDirection = -1;
+            double bestCost = Double.MAX_VALUE;
+            double bestDistance = Double.MAX_VALUE;
+
+            for (int direction = 0; direction < Moves.DIRECTIONS; direction++) {
+                double nextLng = lng + Moves.lngOffset(direction);
+                double nextLat = lat + Moves.latOffset(direction);
+
+                double cost;
+                if (isClose(nextLng, nextLat)) {
+                    cost = -1;
+                } else {
+                    int next = nodes.find(nodes.key(nextLng, nextLat));
+                    if (next == SearchNodes.NONE) continue;
+                    cost = nodes.g(next);
+                }
+
+                double distance = distanceSquared(nextLng, nextLat);
+                if ((cost < bestCost || (cost == bestCost && distance < bestDistance))
+                        && !zones.isMoveInvalid(lng, lat, nextLng, nextLat)) {
+                    bestDirection = direction;
+                    bestCost = cost;
+                    bestDistance = distance;
+                }
+            }
+
+            if (bestDirection < 0) {
+                return List.of();
+            }
+            lng += Moves.lngOffset(bestDirection);
+            lat += Moves.latOffset(bestDirection);
+            path.add(new LngLat(lng, lat));
+
+            if (isClose(lng, lat)) {
+                return path;
+            }
+        }
+        return List.of();
+    }
+
+    // grows the search a layer at a time until start's cell is reached. if it never is (the
+    // moves don't land in every cell) the cheapest of its neighbouring cells is used instead
+    private int settle(LngLat start) {
+        long key = nodes.key(start.lng(), start.lat());
+        int id = nodes.find(key);
+
+        while (id == SearchNodes.NONE && canGrow()) {
+            int nearby = nearest(key);
+            if (nearby != SearchNodes.NONE && layer() > nodes.g(nearby) + 1) {
+                return nearby;
+            }
+            growLayer();
+            id = nodes.find(key);
+        }
+        return id != SearchNodes.NONE ? id : nearest(key);
+    }
+
+    private int nearest(long key) {
+        int best = SearchNodes.NONE;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                int id = nodes.find(Lattice.pack(Lattice.x(key) + dx, Lattice.y(key) + dy));
+                if (id != SearchNodes.NONE && (best == SearchNodes.NONE || nodes.g(id) < nodes.g(best))) {
+                    best = id;
+                }
+            }
+        }
+        return best;
+    }
+
+    private boolean canGrow() {
+        return expanded < nodes.size() && nodes.size() < maxNodes;
+    }
+
+    // cost of the next node to be expanded
+    private double layer() {
+        return nodes.g(expanded);
+    }
+
+    // a field can take hundreds of thousands of cells, so growing it gives way to an interrupt
+    // like the searches do. the cells expanded so far are kept and growth resumes from them
+    private void growLayer() {
+        double layer = layer();
+        while (canGrow() && nodes.g(expanded) == layer) {
+            if ((expanded & SearchNodes.CANCEL_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Cost field growth cancelled");
+            }
+            expand(expanded++, false);
+        }
+    }
+
+    private void expand(int id, boolean withinReach) {
+        double lng = nodes.lng(id);
+        double lat = nodes.lat(id);
+
+        for (int direction = 0; direction < Moves.DIRECTIONS; direction++) {
+            double neighborLng = lng + Moves.lngOffset(direction);
+            double neighborLat = lat + Moves.latOffset(direction);
+            boolean close = isClose(neighborLng, neighborLat);
+            if (withinReach && !close) {
+                continue;
+            }
+
+            long neighborKey = nodes.key(neighborLng, neighborLat);
+            double g = close ? 0 : nodes.g(id) + 1;
+            int neighbor = nodes.find(neighborKey);
+            // every arrival in a layer costs the same, so a cell keeps whichever position lies
+            // furthest out. otherwise merging keeps eroding the edge of the search and far cells
+            // end up a move or two dearer than they are. only cells outside the goal's disc that
+            // haven't been expanded yet can still move
+            if (neighbor != SearchNodes.NONE && (g == 0 || neighbor < expanded || nodes.g(neighbor) != g
+                    || distanceSquared(neighborLng, neighborLat) <= distanceSquared(nodes.lng(neighbor), nodes.lat(neighbor)))) {
+                continue;
+            }
+
+            if (zones.isMoveInvalid(lng, lat, neighborLng, neighborLat)) {
+                continue;
+            }
+
+            if (neighbor == SearchNodes.NONE) {
+                neighbor = nodes.add(neighborKey, neighborLng, neighborLat);
+            }
+            nodes.update(neighbor, neighborLng, neighborLat, g, 0, id);
+        }
+    }
+
+    private boolean isClose(double lng, double lat) {
+        return Math.sqrt(distanceSquared(lng, lat)) < Moves.MOVE_DISTANCE;
+    }
+
+    private double distanceSquared(double lng, double lat) {
+        double lngDiff = lng - goal.lng();
+        double latDiff = lat - goal.lat();
+        return lngDiff * lngDiff + latDiff * latDiff;
+    }
+}
@@ -0,0 +1,236 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+// jump point search over the 16 moves. away from the zones a shortest path only ever swaps
+// between neighbouring directions, and any order of those moves lands in the same place, so a
+// node only carries on in the direction it was reached in or one either side of it. rather than
+// queueing every step, a move is repeated in a straight run until something makes it worth
+// stopping: a target, the edge of a zone, or a point where turning one direction over would
+// reach either. near the zones every node is expanded in all 16 directions, one move at a time,
+// just like plain a*
+public final class JumpPointSearch {
+
+    // within this of a zone the paths round it can bend sharply, so nodes are expanded fully
+    private static final double FORCED_CLEARANCE = Moves.MOVE_DISTANCE;
+    // a straight run (and the look to either side of it) stops after this many moves regardless
+    private static final int MAX_JUMP = 8;
+    private static final int ANY_DIRECTION = -1;
+
+    private final ZoneIndex zones;
+    private final List<LngLat> remaining;
+    private final Map<LngLat, List<LngLat>> found = new HashMap<>();
+    private final SearchNodes nodes;
+    private final NodeHeap openSet;
+    // the move each node was reached by, and how many times it was repeated
+    private int[] direction = new int[1024];
+    private int[] steps = new int[1024];
+
+    private JumpPointSearch(LngLat start, List<LngLat> targets, ZoneIndex zones) {
+        this.zones = zones;
+        this.remaining = new ArrayList<>(targets);
+        this.nodes = new SearchNodes(start, SearchNodes.SEARCH_RESOLUTION);
+        this.openSet = new NodeHeap(nodes);
+    }
+
+    // paths from start to each target it can reach within maxExpansions, like PathService's a*
+    public static Map<LngLat, List<LngLat>> search(LngLat start, List<LngLat> targets, ZoneIndex zones,
+                                                   int maxExpansions) {
+        return new JumpPointSearch(start, targets, zones).run(start, maxExpansions);
+    }
+
+    private Map<LngLat, List<LngLat>> run(LngLat start, int maxExpansions) {
+        if (remaining.isEmpty()) {
+            return found;
+        }
+
+        int startNode = nodes.add(nodes.key(start.lng(), start.lat()), start.lng(), start.lat());
+        nodes.update(startNode, 0.0, nearest(start.lng(), start.lat()), SearchNodes.NONE);
+        record(startNode, ANY_DIRECTION, 0);
+        openSet.push(startNode);
+
+        int expansions = 0;
+        while (!openSet.isEmpty() && ++expansions <= maxExpansions) {
+            if ((expansions & SearchNodes.CANCEL_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Jump point search cancelled");
+            }
+
+            int current = openSet.pop();
+            nodes.close(current);
+
+            if (reachTargets(current)) {
+                if (remaining.isEmpty()) {
+                    return found;
+                }
+                retarget();
+            }
+
+            double lng = nodes.lng(current);
+            double lat = nodes.lat(current);
+            int from = direction[current];
+            if (from == ANY_DIRECTION || zones.isNearAnyZone(lng, lat, FORCED_CLEARANCE)) {
+                for (int move = 0; move < Moves.DIRECTIONS; move++) {
+                    jump(current, lng, lat, move);
+                }
+            } else {
+                for (int turn = -1; turn <= 1; turn++) {
+                    jump(current, lng, lat, Math.floorMod(from + turn, Moves.DIRECTIONS));
+                }
+            }
+        }
+        return found;
+    }
+
+    // repeats the move from the node until the run reaches somewhere worth stopping, and queues
+    // that point. nothing is queued if the very first move is blocked
+    private void jump(int parent, double lng, double lat, int move) {
+        double lngStep = Moves.lngOffset(move);
+        double latStep = Moves.latOffset(move);
+        double sideReach = MAX_JUMP * Moves.MOVE_DISTANCE;
+        boolean targetsNear = nearest(lng, lat) < 2 * sideReach + Moves.MOVE_DISTANCE;
+        // most runs never come near a zone, even looking to either side, which is cheaper to rule
+        // out once for the rest of the run than at every step. only worked out once the run is
+        // clear of the zone it may have started next to
+        boolean checked = false;
+        boolean clearRun = false;
+        boolean clearSides = false;
+
+        for (int step = 1; step <= MAX_JUMP; step++) {
+            double nextLng = lng + lngStep;
+            double nextLat = lat + latStep;
+            if (zones.isMoveInvalid(lng, lat, nextLng, nextLat)) {
+                if (step > 1) {
+                    queue(parent, lng, lat, move, step - 1);
+                }
+                return;
+            }
+            lng = nextLng;
+            lat = nextLat;
+
+            if (step == MAX_JUMP || (targetsNear && isCloseToTarget(lng, lat))
+                    || (!clearRun && zones.isNearAnyZone(lng, lat, FORCED_CLEARANCE))) {
+                queue(parent, lng, lat, move, step);
+                return;
+            }
+            if (!checked) {
+                double runLng = lng + (MAX_JUMP - step) * lngStep;
+                double runLat = lat + (MAX_JUMP - step) * latStep;
+                clearRun = !isNearZone(lng, lat, runLng, runLat);
+                clearSides = clearRun && zones.isCorridorClear(lng, lat, runLng, runLat, sideReach + FORCED_CLEARANCE);
+                checked = true;
+            }
+            if ((!clearSides || targetsNear) && turnReachesSomething(lng, lat, move, !clearSides, targetsNear)) {
+                queue(parent, lng, lat, move, step);
+                return;
+            }
+        }
+    }
+
+    // whether a run one direction over from here would reach a target or the edge of a zone
+    private boolean turnReachesSomething(double lng, double lat, int move, boolean checkZones, boolean checkTargets) {
+        for (int turn = -1; turn <= 1; turn += 2) {
+            int side = Math.floorMod(move + turn, Moves.DIRECTIONS);
+            double lngStep = Moves.lngOffset(side);
+            double latStep = Moves.latOffset(side);
+            if (checkZones && isNearZone(lng, lat, lng + MAX_JUMP * lngStep, lat + MAX_JUMP * latStep)) {
+                return true;
+            }
+            for (int step = 1; checkTargets && step <= MAX_JUMP; step++) {
+                if (isCloseToTarget(lng + step * lngStep, lat + step * latStep)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void queue(int parent, double lng, double lat, int move, int moves) {
+        double g = nodes.g(parent) + moves * Moves.MOVE_DISTANCE;
+        long key = nodes.key(lng, lat);
+        int node = nodes.find(key);
+        if (node != SearchNodes.NONE && (nodes.isClosed(node) || g >= nodes.g(node))) {
+            return;
+        }
+        if (node == SearchNodes.NONE) {
+            node = nodes.add(key, lng, lat);
+        }
+        nodes.update(node, lng, lat, g, g + nearest(lng, lat), parent);
+        record(node, move, moves);
+        openSet.push(node);
+    }
+
+    private void record(int node, int move, int moves) {
+        if (node >= direction.length) {
+            direction = Arrays.copyOf(direction, direction.length * 2);
+            steps = Arrays.copyOf(steps, steps.length * 2);
+        }
+        direction[node] = move;
+        steps[node] = moves;
+    }
+
+    private boolean reachTargets(int node) {
+        boolean reached = false;
+        for (Iterator<LngLat> it = remaining.iterator(); it.hasNext(); ) {
+            LngLat target = it.next();
+            if (Moves.distance(nodes.lng(node), nodes.lat(node), target) < Moves.MOVE_DISTANCE) {
+                found.put(target, path(node));
+                it.remove();
+                reached = true;
+            }
+        }
+        return reached;
+    }
+
+    private void retarget() {
+        openSet.rescore(this::nearest);
+    }
+
+    // every move of the path, filling each run back in by repeating its move from the jump
+    // point before it, the same way the run was flown in the first place
+    private List<LngLat> path(int node) {
+        List<Integer> jumpPoints = new ArrayList<>();
+        for (int id = node; id != SearchNodes.NONE; id = nodes.parent(id)) {
+            jumpPoints.add(id);
+        }
+
+        List<LngLat> path = new ArrayList<>();
+        path.add(nodes.position(jumpPoints.getLast()));
+        for (int i = jumpPoints.size() - 2; i >= 0; i--) {
+            int id = jumpPoints.get(i);
+            double lng = path.getLast().lng();
+            double lat = path.getLast().lat();
+            for (int step = 0; step < steps[id]; step++) {
+                lng += Moves.lngOffset(direction[id]);
+                lat += Moves.latOffset(direction[id]);
+                path.add(new LngLat(lng, lat));
+            }
+        }
+        return path;
+    }
+
+    private boolean isNearZone(double startLng, double startLat, double endLng, double endLat) {
+        return !zones.isCorridorClear(startLng, startLat, endLng, endLat, FORCED_CLEARANCE);
+    }
+
+    private boolean isCloseToTarget(double lng, double lat) {
+        for (LngLat target : remaining) {
+            if (Moves.distance(lng, lat, target) < Moves.MOVE_DISTANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double nearest(double lng, double lat) {
+        return Moves.nearest(lng, lat, remaining);
+    }
+}
@@ -0,0 +1,158 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// landmark distances for the ALT heuristic. a few landmarks sit around the edge of a grid over
+// the zones, and the moves from every cell of the grid to each one are worked out once with a
+// CostField. by the triangle inequality the moves from a node to the goal are at least the
+// difference between their moves to any landmark, which sees round zones where straight-line
+// distance can't
+public final class Landmarks {
+
+    // grid the landmark moves are stored on, read without locking during a search
+    private static final double RESOLUTION = Moves.MOVE_DISTANCE / 2;
+    // how far beyond the zones the grid reaches, in moves. legs starting or ending further out
+    // than this fall back to straight-line distance. the fields grow with the square of it
+    private static final int MARGIN_MOVES = 30;
+    // how far in from the edge of the grid the landmarks sit, in moves
+    private static final int LANDMARK_INSET_MOVES = 3;
+    private static final int FIELD_MAX_NODES = 500_000;
+    private static final short UNKNOWN = -1;
+    // a stored count belongs to some field node up to a cell diagonal from the position asked
+    // about, which can put it a move out at the node and again at the goal. one more covers the
+    // field itself merging nodes at the same resolution as it grows
+    private static final int SLACK_MOVES = 2 * (int) Math.ceil(Math.sqrt(2) * RESOLUTION / Moves.MOVE_DISTANCE) + 1;
+    // how many landmarks a single search looks at, the ones giving the best bound at its start
+    private static final int ACTIVE_LANDMARKS = 4;
+
+    private final ZoneIndex zones;
+    private final List<LngLat> positions = new ArrayList<>();
+    private final double originLng;
+    private final double originLat;
+    private final int columns;
+    private final int rows;
+    // moves[landmark][cell], UNKNOWN where the landmark's field didn't reach
+    private final short[][] moves;
+
+    // a lower bound on the moves left from a position to one goal
+    @FunctionalInterface
+    public interface Bound {
+        double moves(double lng, double lat);
+    }
+
+    public Landmarks(ZoneIndex zones) {
+        this.zones = zones;
+
+        if (zones.isEmpty()) {
+            originLng = originLat = 0;
+            columns = rows = 0;
+            moves = new short[0][];
+            return;
+        }
+
+        double margin = MARGIN_MOVES * Moves.MOVE_DISTANCE;
+        originLng = zones.minLng() - margin;
+        originLat = zones.minLat() - margin;
+        columns = (int) Math.ceil((zones.maxLng() + margin - originLng) / RESOLUTION);
+        rows = (int) Math.ceil((zones.maxLat() + margin - originLat) / RESOLUTION);
+
+        // the corners and edge midpoints of the grid, just in from its edge. a landmark helps a
+        // search most when it lies beyond the goal, and these are beyond most goals from somewhere
+        double inset = LANDMARK_INSET_MOVES * Moves.MOVE_DISTANCE;
+        double west = originLng + inset;
+        double south = originLat + inset;
+        double east = zones.maxLng() + margin - inset;
+        double north = zones.maxLat() + margin - inset;
+        double middleLng = (west + east) / 2;
+        double middleLat = (south + north) / 2;
+        positions.addAll(List.of(
+                new LngLat(west, south), new LngLat(middleLng, south), new LngLat(east, south),
+                new LngLat(east, middleLat), new LngLat(east, north), new LngLat(middleLng, north),
+                new LngLat(west, north), new LngLat(west, middleLat)));
+
+        // far enough for a landmark in one corner to reach the opposite corner of the grid
+        int reach = (int) Math.ceil(Math.hypot(columns, rows) * RESOLUTION / Moves.MOVE_DISTANCE) + 1;
+        moves = IntStream.range(0, positions.size()).parallel()
+                .mapToObj(landmark -> movesTo(positions.get(landmark), reach))
+                .toArray(short[][]::new);
+    }
+
+    public ZoneIndex zones() {
+        return zones;
+    }
+
+    public List<LngLat> positions() {
+        return List.copyOf(positions);
+    }
+
+    // null when the goal is off the grid or no landmark knows it, where there is nothing to add
+    // to straight-line distance
+    public Bound towards(LngLat start, LngLat goal) {
+        int goalCell = cell(goal.lng(), goal.lat());
+        int startCell = cell(start.lng(), start.lat());
+        if (goalCell < 0) {
+            return null;
+        }
+
+        // the landmarks that already say the most at the start are kept for the whole search
+        int[] active = IntStream.range(0, moves.length)
+                .filter(landmark -> moves[landmark][goalCell] != UNKNOWN)
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer landmark) -> startCell < 0 || moves[landmark][startCell] == UNKNOWN
+                        ? 0 : Math.abs(moves[landmark][startCell] - moves[landmark][goalCell])).reversed())
+                .limit(ACTIVE_LANDMARKS)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        if (active.length == 0) {
+            return null;
+        }
+
+        int[] goalMoves = Arrays.stream(active).map(landmark -> moves[landmark][goalCell]).toArray();
+        return (lng, lat) -> {
+            int cell = cell(lng, lat);
+            if (cell < 0) {
+                return 0;
+            }
+            int best = 0;
+            for (int i = 0; i < active.length; i++) {
+                int here = moves[active[i]][cell];
+                if (here != UNKNOWN) {
+                    best = Math.max(best, Math.abs(here - goalMoves[i]));
+                }
+            }
+            return Math.max(0, best - SLACK_MOVES);
+        };
+    }
+
+    // the fewest moves from each cell to the landmark, taken over every field node in the cell
+    private short[] movesTo(LngLat landmark, int reach) {
+        CostField field = new CostField(landmark, zones, RESOLUTION, FIELD_MAX_NODES);
+        field.growTo(reach);
+
+        short[] cells = new short[columns * rows];
+        Arrays.fill(cells, UNKNOWN);
+        field.forEachCell((lng, lat, count) -> {
+            int cell = cell(lng, lat);
+            if (cell >= 0 && (cells[cell] == UNKNOWN || count < cells[cell])) {
+                cells[cell] = (short) Math.min(count, Short.MAX_VALUE);
+            }
+        });
+        return cells;
+    }
+
+    private int cell(double lng, double lat) {
+        int column = (int) Math.floor((lng - originLng) / RESOLUTION);
+        int row = (int) Math.floor((lat - originLat) / RESOLUTION);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return -1;
+        }
+        return row * columns + column;
+    }
+}
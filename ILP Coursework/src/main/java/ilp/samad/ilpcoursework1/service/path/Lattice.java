@@ -0,0 +1,59 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+
+// every position a search can reach is the origin plus a sum of fixed length moves, so instead of
+// building string keys we store each node as its integer offset from the origin (in RESOLUTION sized
+// steps) packed into a single long - upper 32 bits for lng, lower 32 bits for lat
+public final class Lattice {
+
+    // exact keys: fine enough that two different moves never land on the same key, coarse enough
+    // that floating point drift from taking the same moves in a different order still maps to the
+    // same one. the searches merge nodes at SearchNodes.SEARCH_RESOLUTION instead, so this is left
+    // to PathCache snapping its keys and to lattices built without a resolution of their own
+    public static final double RESOLUTION = 1e-9;
+
+    private final double originLng;
+    private final double originLat;
+    private final double resolution;
+
+    public Lattice(LngLat origin) {
+        this(origin, RESOLUTION);
+    }
+
+    public Lattice(LngLat origin, double resolution) {
+        this.originLng = origin.lng();
+        this.originLat = origin.lat();
+        this.resolution = resolution;
+    }
+
+    public long key(LngLat position) {
+        return key(position.lng(), position.lat());
+    }
+
+    public long key(double lng, double lat) {
+        return pack(offset(lng - originLng), offset(lat - originLat));
+    }
+
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public static int x(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int y(long key) {
+        return (int) key;
+    }
+
+    private int offset(double delta) {
+        long steps = Math.round(delta / resolution);
+
+        // Integer.MIN_VALUE is excluded so that no key can collide with the empty slot marker in LongIntMap
+        if (steps >= Integer.MAX_VALUE || steps <= Integer.MIN_VALUE) {
+            throw new IllegalArgumentException("Position is too far from the search origin.");
+        }
+        return (int) steps;
+    }
+}
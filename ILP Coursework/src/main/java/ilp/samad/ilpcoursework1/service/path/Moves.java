@@ -0,0 +1,60 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+
+import java.util.Collection;
+
+// the 16 compass moves as precomputed offsets, worked out exactly the way
+// CalculationService.calculateNextPosition does so positions match bit for bit
+public final class Moves {
+
+    public static final double MOVE_DISTANCE = 0.00015;
+    public static final double ANGLE_INCREMENT = 22.5;
+    public static final int DIRECTIONS = 16;
+
+    private static final double[] LNG_OFFSETS = new double[DIRECTIONS];
+    private static final double[] LAT_OFFSETS = new double[DIRECTIONS];
+
+    static {
+        for (int d = 0; d < DIRECTIONS; d++) {
+            double angleInRadians = Math.toRadians(angle(d));
+            LNG_OFFSETS[d] = MOVE_DISTANCE * Math.cos(angleInRadians);
+            LAT_OFFSETS[d] = MOVE_DISTANCE * Math.sin(angleInRadians);
+        }
+    }
+
+    private Moves() {}
+
+    public static double angle(int direction) {
+        return direction * ANGLE_INCREMENT;
+    }
+
+    public static double lngOffset(int direction) {
+        return LNG_OFFSETS[direction];
+    }
+
+    public static double latOffset(int direction) {
+        return LAT_OFFSETS[direction];
+    }
+
+    // same as CalculationService.calculateDistance, without allocating a LngLat for every
+    // position a search looks at
+    public static double distance(double lng, double lat, double otherLng, double otherLat) {
+        double lngDiff = lng - otherLng;
+        double latDiff = lat - otherLat;
+        return Math.sqrt(lngDiff * lngDiff + latDiff * latDiff);
+    }
+
+    public static double distance(double lng, double lat, LngLat point) {
+        return distance(lng, lat, point.lng(), point.lat());
+    }
+
+    // straight-line distance to whichever of the targets is nearest
+    public static double nearest(double lng, double lat, Collection<LngLat> targets) {
+        double best = Double.MAX_VALUE;
+        for (LngLat target : targets) {
+            best = Math.min(best, distance(lng, lat, target));
+        }
+        return best;
+    }
+}
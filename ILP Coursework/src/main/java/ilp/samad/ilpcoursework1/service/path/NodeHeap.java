@@ -0,0 +1,134 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+
+// indexed binary min-heap of node ids ordered by f-score, tracking where each node sits so
+// a better g-score can move the existing entry up (decrease-key) instead of pushing a duplicate
+public final class NodeHeap {
+
+    private static final int NOT_IN_HEAP = -1;
+
+    private final SearchNodes nodes;
+    private int[] heap = new int[256];
+    private int[] position = new int[256];
+    private int size;
+
+    public NodeHeap(SearchNodes nodes) {
+        this.nodes = nodes;
+        Arrays.fill(position, NOT_IN_HEAP);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return id < position.length && position[id] != NOT_IN_HEAP;
+    }
+
+    // adds the node, or repositions it if it is already queued and its f-score dropped
+    public void push(int id) {
+        if (contains(id)) {
+            siftUp(position[id]);
+            return;
+        }
+
+        ensureCapacity(id);
+        heap[size] = id;
+        position[id] = size;
+        siftUp(size++);
+    }
+
+    public int pop() {
+        int top = heap[0];
+        position[top] = NOT_IN_HEAP;
+
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    // lowest f-score still queued
+    public int peek() {
+        return heap[0];
+    }
+
+    // re-scores everything queued as its g-score plus the estimate from where it is, e.g. once a
+    // target has been reached and the estimate is towards the ones left
+    public void rescore(DoubleBinaryOperator estimate) {
+        for (int index = 0; index < size; index++) {
+            int id = heap[index];
+            nodes.update(id, nodes.g(id), nodes.g(id) + estimate.applyAsDouble(nodes.lng(id), nodes.lat(id)),
+                    nodes.parent(id));
+        }
+        reorder();
+    }
+
+    // restores the heap order after the f-scores of queued nodes have been changed in place
+    public void reorder() {
+        for (int index = (size >>> 1) - 1; index >= 0; index--) {
+            siftDown(index);
+        }
+    }
+
+    private void siftUp(int index) {
+        int id = heap[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parentId = heap[parentIndex];
+            if (!before(id, parentId)) {
+                break;
+            }
+            heap[index] = parentId;
+            position[parentId] = index;
+            index = parentIndex;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+
+    private void siftDown(int index) {
+        int id = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], id)) {
+                break;
+            }
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+
+    // ties on f are broken towards the larger g, i.e. the node closer to the goal
+    private boolean before(int a, int b) {
+        double fa = nodes.f(a), fb = nodes.f(b);
+        return fa < fb || (fa == fb && nodes.g(a) > nodes.g(b));
+    }
+
+    private void ensureCapacity(int id) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        if (id >= position.length) {
+            int oldLength = position.length;
+            position = Arrays.copyOf(position, Math.max(oldLength * 2, id + 1));
+            Arrays.fill(position, oldLength, position.length, NOT_IN_HEAP);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+// how PathService searches legs that need more than a straight line
+public enum PathfindingMode {
+    // a* over the whole lattice, always the fewest moves
+    FLAT,
+    // long legs are planned over a ClusterGraph first and then refined between its entrances,
+    // a little longer than flat a* but far fewer nodes expanded
+    HIERARCHICAL,
+    // JumpPointSearch, the same moves as flat a* from far fewer nodes by skipping along straight
+    // runs in open space
+    JUMP_POINT,
+    // BidirectionalSearch for single-target legs, searching from both ends so that neither
+    // frontier has to spread as far. approximate, now and then a move longer than flat a*, and
+    // searches with several targets still use flat a*
+    BIDIRECTIONAL
+}
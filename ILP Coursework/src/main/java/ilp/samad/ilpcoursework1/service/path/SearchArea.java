@@ -0,0 +1,59 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+
+import java.util.Collection;
+
+// the box a search is kept inside: round every zone, the start and the targets, with some room
+// to spare. a shortest path only ever bends round the corners of zones, so it never needs to
+// leave that box by more than a move or two. keeping the search inside it means there are only
+// so many cells to expand, and a search that runs out of them has shown that a target can't be
+// reached rather than given up on it
+public final class SearchArea {
+
+    // room left round the box, in moves, for paths skirting its edge
+    private static final int MARGIN_MOVES = 10;
+    // a cluster's entrances sit on its border, so paths between them need a little room outside it
+    private static final int CLUSTER_MARGIN_MOVES = 1;
+
+    private final double minLng;
+    private final double minLat;
+    private final double maxLng;
+    private final double maxLat;
+
+    private SearchArea(double minLng, double minLat, double maxLng, double maxLat, int marginMoves) {
+        double margin = marginMoves * Moves.MOVE_DISTANCE;
+        this.minLng = minLng - margin;
+        this.minLat = minLat - margin;
+        this.maxLng = maxLng + margin;
+        this.maxLat = maxLat + margin;
+    }
+
+    public static SearchArea around(ZoneIndex zones, LngLat start, Collection<LngLat> targets) {
+        double minLng = start.lng(), minLat = start.lat();
+        double maxLng = start.lng(), maxLat = start.lat();
+        for (LngLat target : targets) {
+            minLng = Math.min(minLng, target.lng());
+            minLat = Math.min(minLat, target.lat());
+            maxLng = Math.max(maxLng, target.lng());
+            maxLat = Math.max(maxLat, target.lat());
+        }
+        if (!zones.isEmpty()) {
+            minLng = Math.min(minLng, zones.minLng());
+            minLat = Math.min(minLat, zones.minLat());
+            maxLng = Math.max(maxLng, zones.maxLng());
+            maxLat = Math.max(maxLat, zones.maxLat());
+        }
+        return new SearchArea(minLng, minLat, maxLng, maxLat, MARGIN_MOVES);
+    }
+
+    // one cluster of a ClusterGraph, so that searches between its entrances stay inside it
+    public static SearchArea cluster(double minLng, double minLat, double size) {
+        return new SearchArea(minLng, minLat, minLng + size, minLat + size, CLUSTER_MARGIN_MOVES);
+    }
+
+    public boolean contains(double lng, double lat) {
+        return lng >= minLng && lng <= maxLng && lat >= minLat && lat <= maxLat;
+    }
+}
@@ -0,0 +1,10 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+// what A* in PathService uses to estimate the moves left to the goal
+public enum SearchHeuristic {
+    // straight-line distance, free to work out but blind to zones in the way
+    EUCLIDEAN,
+    // the larger of straight-line distance and the ALT bound from Landmarks, for single-goal
+    // searches. far fewer nodes expanded round zones, after a one-off precomputation
+    LANDMARKS
+}
@@ -0,0 +1,67 @@
+package ilp.samad.ilpcoursework1.service.path;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+// the path along the straight line from start to goal, for legs with no zone anywhere near that
+// line. every step takes whichever of the 16 moves lands nearest the goal, so the path is built
+// one move at a time with no search at all
+public final class StraightPath {
+
+    // the nearest move is never more than half an angle increment off the line to the goal,
+    // so each one gets at least this fraction of a move closer
+    private static final double MIN_PROGRESS = Math.cos(Math.toRadians(Moves.ANGLE_INCREMENT / 2));
+
+    private StraightPath() {}
+
+    // empty when a zone is within a move of the line, where it takes a search to get round it
+    public static List<LngLat> between(LngLat start, LngLat goal, ZoneIndex zones) {
+        if (!zones.isCorridorClear(start.lng(), start.lat(), goal.lng(), goal.lat(), Moves.MOVE_DISTANCE)) {
+            return List.of();
+        }
+
+        double lng = start.lng();
+        double lat = start.lat();
+        double distance = Moves.distance(lng, lat, goal);
+        int maxMoves = (int) Math.ceil(distance / (Moves.MOVE_DISTANCE * MIN_PROGRESS)) + 1;
+
+        List<LngLat> path = new ArrayList<>(maxMoves + 1);
+        path.add(start);
+
+        while (distance >= Moves.MOVE_DISTANCE) {
+            if (path.size() > maxMoves) {
+                return List.of();
+            }
+            if ((path.size() & SearchNodes.CANCEL_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Straight path cancelled");
+            }
+
+            int bestDirection = 0;
+            double bestDistance = Double.MAX_VALUE;
+            for (int direction = 0; direction < Moves.DIRECTIONS; direction++) {
+                double next = Moves.distance(lng + Moves.lngOffset(direction), lat + Moves.latOffset(direction), goal);
+                if (next < bestDistance) {
+                    bestDirection = direction;
+                    bestDistance = next;
+                }
+            }
+
+            double nextLng = lng + Moves.lngOffset(bestDirection);
+            double nextLat = lat + Moves.latOffset(bestDirection);
+            // the corridor check already rules this out, it is only a safety net
+            if (zones.isMoveInvalid(lng, lat, nextLng, nextLat)) {
+                return List.of();
+            }
+
+            lng = nextLng;
+            lat = nextLat;
+            distance = bestDistance;
+            path.add(new LngLat(lng, lat));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,126 @@
+package ilp.samad.ilpcoursework1.service.planning;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// true flight-move counts (and the paths behind them) between the service points and
+// delivery points of one request, so planning can look legs up instead of re-running A*
+public final class DistanceMatrix {
+
+    public static final int UNREACHABLE = -1;
+    public static final int NOT_COMPUTED = -2;
+
+    private final List<LngLat> points;
+    private final Map<LngLat, Integer> indexOf = new HashMap<>();
+    // row-major, null until a cell is set. cells are published on their own, so a reader
+    // sees a whole leg or none even while a loader is still filling in the rest of a row
+    private final AtomicReferenceArray<List<LngLat>> legs;
+    // fills cells in the first time they are read, for a matrix that isn't built up front
+    private final CellLoader loader;
+    // one load per cell at a time. readers of other cells never wait on it
+    private final Map<Integer, FutureTask<Void>> loads = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    interface CellLoader {
+        // may fill in more than the one cell asked for, or leave it NOT_COMPUTED
+        void load(DistanceMatrix matrix, int from, int to);
+    }
+
+    DistanceMatrix(List<LngLat> points) {
+        this(points, null);
+    }
+
+    DistanceMatrix(List<LngLat> points, CellLoader loader) {
+        this.points = List.copyOf(points);
+        this.loader = loader;
+        for (int i = 0; i < this.points.size(); i++) {
+            indexOf.putIfAbsent(this.points.get(i), i);
+        }
+        this.legs = new AtomicReferenceArray<>(this.points.size() * this.points.size());
+    }
+
+    public List<LngLat> points() {
+        return points;
+    }
+
+    public boolean contains(LngLat point) {
+        return indexOf.containsKey(point);
+    }
+
+    // number of moves from one point until close to the other, UNREACHABLE if the search
+    // gave up, or NOT_COMPUTED if the pair was never part of the matrix
+    public int moves(LngLat from, LngLat to) {
+        Integer i = indexOf.get(from);
+        Integer j = indexOf.get(to);
+        if (i == null || j == null) {
+            return NOT_COMPUTED;
+        }
+        List<LngLat> leg = leg(i, j);
+        if (leg == null) {
+            return NOT_COMPUTED;
+        }
+        return leg.isEmpty() ? UNREACHABLE : leg.size() - 1;
+    }
+
+    public boolean isReachable(LngLat from, LngLat to) {
+        return moves(from, to) >= 0;
+    }
+
+    // the path behind moves(from, to), or an empty list when there is none
+    public List<LngLat> path(LngLat from, LngLat to) {
+        Integer i = indexOf.get(from);
+        Integer j = indexOf.get(to);
+        if (i == null || j == null) {
+            return List.of();
+        }
+        List<LngLat> leg = leg(i, j);
+        return leg == null ? List.of() : leg;
+    }
+
+    private List<LngLat> leg(int from, int to) {
+        int cell = from * points.size() + to;
+        List<LngLat> leg = legs.get(cell);
+        if (leg != null || loader == null) {
+            return leg;
+        }
+
+        // the search runs outside any lock; a second reader of the same cell waits for it
+        FutureTask<Void> load = new FutureTask<>(() -> loader.load(this, from, to), null);
+        FutureTask<Void> running = loads.putIfAbsent(cell, load);
+        if (running == null) {
+            running = load;
+            load.run();
+        }
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for a distance matrix cell");
+        } catch (ExecutionException e) {
+            // a failed or cancelled load is forgotten so the next read tries again
+            loads.remove(cell, running);
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return legs.get(cell);
+    }
+
+    int index(LngLat point) {
+        return indexOf.get(point);
+    }
+
+    // written once per cell, by the task that built or loaded it
+    void set(int from, int to, List<LngLat> path) {
+        legs.set(from * points.size() + to, List.copyOf(path));
+    }
+}
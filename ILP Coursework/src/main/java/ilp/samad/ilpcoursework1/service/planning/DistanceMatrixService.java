@@ -0,0 +1,101 @@
+package ilp.samad.ilpcoursework1.service.planning;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.PathService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+@Service
+public class DistanceMatrixService {
+    private static final Logger logger = LoggerFactory.getLogger(DistanceMatrixService.class);
+
+    private final PathService pathService;
+
+    public DistanceMatrixService(PathService pathService) {
+        this.pathService = pathService;
+    }
+
+    // finds a path for every service point -> delivery, delivery -> service point and
+    // delivery -> delivery pair, one row per core at a time. service point -> service point
+    // is never flown so it is left out, unless one of them is a delivery as well
+    public DistanceMatrix build(Collection<LngLat> servicePoints, Collection<LngLat> deliveries,
+                                List<RestrictedArea> noFlyZones) {
+        long startTime = System.currentTimeMillis();
+
+        Set<LngLat> servicePointSet = new LinkedHashSet<>(servicePoints);
+        Set<LngLat> deliverySet = new LinkedHashSet<>(deliveries);
+        List<LngLat> points = points(servicePointSet, deliverySet);
+        DistanceMatrix matrix = new DistanceMatrix(points);
+
+        // the legs out to every delivery from one point come from a single multi-target search,
+        // and legs back to a service point come off that point's cost field
+        points.parallelStream().forEach(from -> {
+            // a planning deadline interrupts the build, so rows not started yet are skipped
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Distance matrix build cancelled");
+            }
+            int row = matrix.index(from);
+            List<LngLat> targets = deliverySet.stream().filter(to -> !to.equals(from)).toList();
+            pathService.findPaths(from, targets, noFlyZones)
+                    .forEach((to, path) -> matrix.set(row, matrix.index(to), path));
+
+            if (deliverySet.contains(from)) {
+                for (LngLat to : servicePointSet) {
+                    if (!to.equals(from)) {
+                        matrix.set(row, matrix.index(to), pathService.findPathHome(from, to, noFlyZones));
+                    }
+                }
+            }
+        });
+
+        for (LngLat point : points) {
+            int i = matrix.index(point);
+            matrix.set(i, i, List.of(point));
+        }
+
+        logger.info("Distance matrix for {} points ({} deliveries) built in {}ms",
+                points.size(), deliverySet.size(), System.currentTimeMillis() - startTime);
+        return matrix;
+    }
+
+    // only the legs out of and back to the service points, each searched for the first time it
+    // is read. a quick plan then pays for just the service points and drop-offs it ends up using.
+    // delivery -> delivery pairs are never filled in and always read as NOT_COMPUTED
+    public DistanceMatrix buildServicePointLegs(Collection<LngLat> servicePoints, Collection<LngLat> deliveries,
+                                                List<RestrictedArea> noFlyZones) {
+        Set<LngLat> servicePointSet = new LinkedHashSet<>(servicePoints);
+        Set<LngLat> deliverySet = new LinkedHashSet<>(deliveries);
+
+        return new DistanceMatrix(points(servicePointSet, deliverySet), (matrix, from, to) -> {
+            LngLat origin = matrix.points().get(from);
+            LngLat target = matrix.points().get(to);
+
+            if (from == to) {
+                matrix.set(from, to, List.of(origin));
+            } else if (servicePointSet.contains(origin) && deliverySet.contains(target)) {
+                // the whole row comes out of one multi-target search
+                List<LngLat> targets = deliverySet.stream().filter(delivery -> !delivery.equals(origin)).toList();
+                pathService.findPaths(origin, targets, noFlyZones)
+                        .forEach((delivery, path) -> matrix.set(from, matrix.index(delivery), path));
+            } else if (deliverySet.contains(origin) && servicePointSet.contains(target)) {
+                matrix.set(from, to, pathService.findPathHome(origin, target, noFlyZones));
+            }
+        });
+    }
+
+    // a delivery can be right on a service point, in which case the two share an index
+    private static List<LngLat> points(Set<LngLat> servicePoints, Set<LngLat> deliveries) {
+        Set<LngLat> points = new LinkedHashSet<>(servicePoints);
+        points.addAll(deliveries);
+        return new ArrayList<>(points);
+    }
+}
@@ -0,0 +1,86 @@
+package ilp.samad.ilpcoursework1.service.planning;
+
+import ilp.samad.ilpcoursework1.data.drone.Drone;
+import ilp.samad.ilpcoursework1.data.drone.ServicePoint;
+import ilp.samad.ilpcoursework1.data.drone.ServicePointDrones;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
+import ilp.samad.ilpcoursework1.service.query.AvailabilityIndex;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// one consistent version of the reference data for a whole planning run, with the lookups
+// the planner needs already indexed so nothing in the loop goes back to DroneService
+public final class PlanningContext {
+
+    private final List<Drone> drones;
+    private final List<ServicePointDrones> availability;
+    private final List<ServicePoint> servicePoints;
+    private final List<RestrictedArea> noFlyZones;
+
+    private final Map<String, Drone> dronesById = new LinkedHashMap<>();
+    private final Map<Integer, ServicePoint> servicePointsById = new HashMap<>();
+    private final AvailabilityIndex availabilityIndex;
+
+    public PlanningContext(List<Drone> drones, List<ServicePointDrones> availability,
+                           List<ServicePoint> servicePoints, List<RestrictedArea> noFlyZones) {
+        this.drones = drones;
+        this.availability = availability;
+        this.servicePoints = servicePoints;
+        this.noFlyZones = noFlyZones;
+
+        for (Drone drone : drones) {
+            dronesById.putIfAbsent(drone.id(), drone);
+        }
+        for (ServicePoint servicePoint : servicePoints) {
+            servicePointsById.putIfAbsent(servicePoint.id(), servicePoint);
+        }
+        this.availabilityIndex = new AvailabilityIndex(availability);
+    }
+
+    public boolean isFor(List<Drone> drones, List<ServicePointDrones> availability,
+                         List<ServicePoint> servicePoints, List<RestrictedArea> noFlyZones) {
+        return this.drones == drones && this.availability == availability
+                && this.servicePoints == servicePoints && this.noFlyZones == noFlyZones;
+    }
+
+    public List<Drone> drones() {
+        return drones;
+    }
+
+    public List<ServicePoint> servicePoints() {
+        return servicePoints;
+    }
+
+    public List<RestrictedArea> noFlyZones() {
+        return noFlyZones;
+    }
+
+    public Optional<Drone> drone(String id) {
+        return Optional.ofNullable(dronesById.get(id));
+    }
+
+    public Optional<ServicePoint> servicePoint(Integer id) {
+        return Optional.ofNullable(servicePointsById.get(id));
+    }
+
+    public Optional<ServicePoint> servicePointFor(String droneId) {
+        Integer servicePointId = availabilityIndex.homeServicePointId(droneId);
+        return servicePointId == null ? Optional.empty() : servicePoint(servicePointId);
+    }
+
+    // same rules as DroneService.getAvailableDrones: ids of drones that can take every order
+    public List<String> availableDrones(List<MedDispatchRec> orders) {
+        return availabilityIndex.availableFor(drones, orders);
+    }
+
+    public boolean isDroneAvailableAtTime(String droneId, LocalDate date, LocalTime time) {
+        return availabilityIndex.isAvailable(droneId, date, time);
+    }
+}
@@ -0,0 +1,10 @@
+package ilp.samad.ilpcoursework1.service.planning;
+
+// how calcDeliveryPath turns a day's orders into flights
+public enum PlanningStrategy {
+    // fill the first available drone from a nearest-neighbour route, then the next, until done
+    GREEDY,
+    // plan every order across the whole eligible fleet at once with SavingsPlanner, anything its
+    // routes can't carry once real paths are known is left to the greedy loop
+    SAVINGS
+}
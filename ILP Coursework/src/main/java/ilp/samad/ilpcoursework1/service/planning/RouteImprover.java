@@ -0,0 +1,181 @@
+package ilp.samad.ilpcoursework1.service.planning;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// tidies up a nearest-neighbour route with 2-opt (reverse a stretch of stops) and or-opt (move a
+// run of up to three stops elsewhere) until neither finds an improvement, the time budget runs
+// out or the thread is interrupted. legs are priced in real flight moves from the distance matrix and the route is treated
+// as a round trip from home, since that is how the flights built from it are flown
+public final class RouteImprover {
+
+    // keeps unreachable legs at the back without overflowing when a few are added up
+    private static final int UNREACHABLE_MOVES = 1_000_000;
+    private static final int MAX_OR_OPT_RUN = 3;
+
+    private final int[][] moves;
+    private final long deadline;
+    // stop i of the route is point route[i] of the cost table, point 0 is home
+    private final int[] route;
+
+    private RouteImprover(int[][] moves, int[] route, Duration budget) {
+        this.moves = moves;
+        this.route = route;
+        this.deadline = System.nanoTime() + budget.toNanos();
+    }
+
+    // the same orders, in an order that takes no more moves to fly than the one given
+    public static List<MedDispatchRec> improve(LngLat home, List<MedDispatchRec> orders, DistanceMatrix matrix,
+                                               Duration budget) {
+        if (orders.size() < 3 || budget.isZero() || budget.isNegative() || !matrix.contains(home)) {
+            return orders;
+        }
+
+        List<LngLat> points = new ArrayList<>(orders.size() + 1);
+        points.add(home);
+        for (MedDispatchRec order : orders) {
+            if (!matrix.contains(order.delivery())) {
+                return orders;
+            }
+            points.add(order.delivery());
+        }
+
+        int[][] moves = new int[points.size()][points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            for (int j = 0; j < points.size(); j++) {
+                int legMoves = matrix.moves(points.get(i), points.get(j));
+                moves[i][j] = legMoves < 0 ? UNREACHABLE_MOVES : legMoves;
+            }
+        }
+
+        int[] route = new int[orders.size()];
+        for (int i = 0; i < route.length; i++) {
+            route[i] = i + 1;
+        }
+
+        RouteImprover improver = new RouteImprover(moves, route, budget);
+        improver.run();
+
+        List<MedDispatchRec> improved = new ArrayList<>(orders.size());
+        for (int point : improver.route) {
+            improved.add(orders.get(point - 1));
+        }
+        return improved;
+    }
+
+    private void run() {
+        boolean improved = true;
+        while (improved && !timeUp()) {
+            improved = twoOpt() | orOpt();
+        }
+    }
+
+    // reverses route[i..j] wherever that shortens the trip. legs aren't quite symmetric, so the
+    // reversed stretch is priced again in full rather than assumed to cost the same
+    private boolean twoOpt() {
+        boolean improved = false;
+        for (int i = 0; i < route.length - 1 && !timeUp(); i++) {
+            for (int j = i + 1; j < route.length; j++) {
+                int before = leg(previous(i), route[i]) + stretch(i, j) + leg(route[j], next(j));
+                int after = leg(previous(i), route[j]) + reversedStretch(i, j) + leg(route[i], next(j));
+                if (after < before) {
+                    reverse(i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // moves the run route[i..i+length-1] to sit between two other stops, keeping its direction
+    private boolean orOpt() {
+        boolean improved = false;
+        for (int length = 1; length <= MAX_OR_OPT_RUN; length++) {
+            for (int i = 0; i + length <= route.length && !timeUp(); i++) {
+                int first = route[i];
+                int last = route[i + length - 1];
+                int removed = leg(previous(i), first) + leg(last, next(i + length - 1))
+                        - leg(previous(i), next(i + length - 1));
+
+                int bestGain = 0;
+                int bestSlot = -1;
+                // slot k means between the k-th and (k+1)-th stop left once the run is taken out
+                int[] rest = without(i, length);
+                for (int k = 0; k <= rest.length; k++) {
+                    int from = k == 0 ? 0 : rest[k - 1];
+                    int to = k == rest.length ? 0 : rest[k];
+                    int added = leg(from, first) + leg(last, to) - leg(from, to);
+                    int gain = removed - added;
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        bestSlot = k;
+                    }
+                }
+
+                if (bestSlot >= 0) {
+                    int[] run = new int[length];
+                    System.arraycopy(route, i, run, 0, length);
+                    System.arraycopy(rest, 0, route, 0, bestSlot);
+                    System.arraycopy(run, 0, route, bestSlot, length);
+                    System.arraycopy(rest, bestSlot, route, bestSlot + length, rest.length - bestSlot);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private int[] without(int start, int length) {
+        int[] rest = new int[route.length - length];
+        System.arraycopy(route, 0, rest, 0, start);
+        System.arraycopy(route, start + length, rest, start, route.length - start - length);
+        return rest;
+    }
+
+    private int stretch(int from, int to) {
+        int total = 0;
+        for (int k = from; k < to; k++) {
+            total += leg(route[k], route[k + 1]);
+        }
+        return total;
+    }
+
+    private int reversedStretch(int from, int to) {
+        int total = 0;
+        for (int k = to; k > from; k--) {
+            total += leg(route[k], route[k - 1]);
+        }
+        return total;
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            int swap = route[from];
+            route[from++] = route[to];
+            route[to--] = swap;
+        }
+    }
+
+    // the point before stop i, home for the first stop
+    private int previous(int i) {
+        return i == 0 ? 0 : route[i - 1];
+    }
+
+    // the point after stop i, home for the last stop
+    private int next(int i) {
+        return i == route.length - 1 ? 0 : route[i + 1];
+    }
+
+    private int leg(int from, int to) {
+        return moves[from][to];
+    }
+
+    // the route is a valid order of the stops after every step, so stopping early is always safe
+    private boolean timeUp() {
+        return System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted();
+    }
+}
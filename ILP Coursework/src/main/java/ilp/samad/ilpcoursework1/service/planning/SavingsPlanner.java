@@ -0,0 +1,186 @@
+package ilp.samad.ilpcoursework1.service.planning;
+
+import ilp.samad.ilpcoursework1.data.drone.Capability;
+import ilp.samad.ilpcoursework1.data.drone.Drone;
+import ilp.samad.ilpcoursework1.data.drone.ServicePoint;
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+// plans a whole day's orders across every eligible drone at once (a capacitated vehicle routing
+// problem with a mixed fleet). every order starts as its own flight on the cheapest drone that
+// can take it, then flights are joined end to start in order of how many moves the join saves
+// (clarke-wright savings) whenever one drone can fly the joined route for less than the two
+// flights cost apart. each route is finally tidied up with RouteImprover
+public final class SavingsPlanner {
+
+    private final PlanningContext context;
+    private final DistanceMatrix matrix;
+
+    private SavingsPlanner(PlanningContext context, DistanceMatrix matrix) {
+        this.context = context;
+        this.matrix = matrix;
+    }
+
+    // the drone and the order to visit its deliveries in, for one flight
+    public record Route(String droneId, List<MedDispatchRec> orders) {}
+
+    // a route priced for the drone that would fly it
+    private record Priced(Drone drone, LngLat home, List<MedDispatchRec> orders, double cost) {}
+
+    private record Saving(int from, int to, int moves) {}
+
+    // orders no drone can take on their own are left out, for the caller to deal with
+    public static List<Route> plan(List<MedDispatchRec> orders, PlanningContext context, DistanceMatrix matrix,
+                                   Duration improvementBudget) {
+        return new SavingsPlanner(context, matrix).solve(orders, improvementBudget);
+    }
+
+    private List<Route> solve(List<MedDispatchRec> orders, Duration improvementBudget) {
+        int n = orders.size();
+
+        // pricing is independent per order and per pair, so both are spread across cores
+        List<Optional<Priced>> singles = orders.parallelStream()
+                .map(order -> cheapest(List.of(order)))
+                .toList();
+
+        List<Saving> savings = IntStream.range(0, n).parallel()
+                .boxed()
+                .flatMap(i -> IntStream.range(0, n)
+                        .filter(j -> j != i && singles.get(i).isPresent() && singles.get(j).isPresent())
+                        .mapToObj(j -> saving(i, j, singles.get(i).get(), singles.get(j).get())))
+                .filter(saving -> saving.moves() > 0)
+                .sorted(Comparator.comparingInt(Saving::moves).reversed()
+                        .thenComparingInt(Saving::from)
+                        .thenComparingInt(Saving::to))
+                .toList();
+
+        Map<MedDispatchRec, Integer> indexOf = new IdentityHashMap<>();
+        for (int i = 0; i < n; i++) {
+            indexOf.put(orders.get(i), i);
+        }
+
+        // routeOf[i] is the route order i currently belongs to
+        Map<Integer, Priced> routes = new HashMap<>();
+        int[] routeOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            routeOf[i] = i;
+            if (singles.get(i).isPresent()) {
+                routes.put(i, singles.get(i).get());
+            }
+        }
+
+        for (Saving saving : savings) {
+            Priced first = routes.get(routeOf[saving.from()]);
+            Priced second = routes.get(routeOf[saving.to()]);
+            // only the last stop of one route can be joined to the first stop of another
+            if (first == null || second == null || first == second
+                    || first.orders().getLast() != orders.get(saving.from())
+                    || second.orders().getFirst() != orders.get(saving.to())) {
+                continue;
+            }
+
+            List<MedDispatchRec> joined = new ArrayList<>(first.orders());
+            joined.addAll(second.orders());
+            Optional<Priced> merged = cheapest(joined);
+            if (merged.isEmpty() || merged.get().cost() >= first.cost() + second.cost()) {
+                continue;
+            }
+
+            int kept = routeOf[saving.from()];
+            routes.remove(routeOf[saving.to()]);
+            routes.put(kept, merged.get());
+            for (MedDispatchRec order : second.orders()) {
+                routeOf[indexOf.get(order)] = kept;
+            }
+        }
+
+        return routes.keySet().stream()
+                .sorted()
+                .map(routes::get)
+                .map(route -> improve(route, improvementBudget))
+                .toList();
+    }
+
+    // moves saved by flying i then j in one go instead of going home in between
+    private Saving saving(int i, int j, Priced alone, Priced next) {
+        LngLat from = alone.orders().getFirst().delivery();
+        LngLat to = next.orders().getFirst().delivery();
+        int direct = matrix.moves(from, to);
+        int home = matrix.moves(from, alone.home());
+        int out = matrix.moves(next.home(), to);
+        if (direct < 0 || home < 0 || out < 0) {
+            return new Saving(i, j, 0);
+        }
+        return new Saving(i, j, home + out - direct);
+    }
+
+    private Route improve(Priced route, Duration budget) {
+        List<MedDispatchRec> improved = RouteImprover.improve(route.home(), route.orders(), matrix, budget);
+        return new Route(route.drone().id(), improved);
+    }
+
+    // the cheapest drone able to fly these orders in this order, if there is one
+    private Optional<Priced> cheapest(List<MedDispatchRec> orders) {
+        double payload = orders.stream().mapToDouble(order -> order.requirements().capacity()).sum();
+
+        Priced best = null;
+        for (String droneId : context.availableDrones(orders)) {
+            Drone drone = context.drone(droneId).orElse(null);
+            ServicePoint home = context.servicePointFor(droneId).orElse(null);
+            if (drone == null || home == null || payload > drone.capability().capacity()) {
+                continue;
+            }
+
+            int moves = moves(home.location(), orders);
+            if (moves < 0 || moves > drone.capability().maxMoves()) {
+                continue;
+            }
+
+            double cost = cost(drone.capability(), moves);
+            if (withinMaxCost(orders, cost) && (best == null || cost < best.cost())) {
+                best = new Priced(drone, home.location(), orders, cost);
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    // counted the way FlightService counts a flight: every leg plus two moves per delivery for
+    // the hover, then the way home. -1 if any leg can't be flown
+    private int moves(LngLat home, List<MedDispatchRec> orders) {
+        int total = 0;
+        LngLat current = home;
+        for (MedDispatchRec order : orders) {
+            int leg = matrix.moves(current, order.delivery());
+            if (leg < 0) {
+                return -1;
+            }
+            total += leg + 2;
+            current = order.delivery();
+        }
+
+        int back = matrix.moves(current, home);
+        return back < 0 ? -1 : total + back;
+    }
+
+    private static double cost(Capability capability, int moves) {
+        return capability.costInitial() + capability.costFinal() + moves * capability.costPerMove();
+    }
+
+    // the flight's cost is shared evenly between its orders
+    private static boolean withinMaxCost(List<MedDispatchRec> orders, double cost) {
+        double costPerOrder = cost / orders.size();
+        return orders.stream()
+                .map(order -> order.requirements().maxCost())
+                .allMatch(maxCost -> maxCost == null || costPerOrder <= maxCost);
+    }
+}
@@ -0,0 +1,183 @@
+package ilp.samad.ilpcoursework1.service.query;
+
+import ilp.samad.ilpcoursework1.data.drone.Drone;
+import ilp.samad.ilpcoursework1.data.drone.DroneAvailability;
+import ilp.samad.ilpcoursework1.data.drone.Schedule;
+import ilp.samad.ilpcoursework1.data.drone.ServicePointDrones;
+import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// every shift of every drone laid out on one week long timeline, built once per availability
+// snapshot. the distinct shift boundaries cut the week into cells (each boundary point itself,
+// and the open gap after it) and every cell stores which drones are on shift, so asking who is
+// available at a given moment is a binary search rather than a walk over every schedule
+public final class AvailabilityIndex {
+
+    private static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+    // drones listed in the availability data, numbered in the order they first appear
+    private final List<String> droneIds = new ArrayList<>();
+    private final Map<String, Integer> droneNumbers = new HashMap<>();
+    private final Map<String, Integer> homeServicePointIds = new HashMap<>();
+    // bit d set if the drone has any shift on DayOfWeek.values()[d]
+    private int[] dayMasks = new int[0];
+
+    // sorted distinct shift starts and ends as nanos since monday midnight
+    private final long[] boundaries;
+    // drones on shift exactly at boundaries[i], and strictly between boundaries[i] and boundaries[i + 1]
+    private final BitSet[] atBoundary;
+    private final BitSet[] afterBoundary;
+
+    public AvailabilityIndex(List<ServicePointDrones> availability) {
+        List<long[]> shifts = new ArrayList<>();
+
+        for (ServicePointDrones sp : availability) {
+            for (DroneAvailability da : sp.drones()) {
+                // a drone's home is the first service point that lists it
+                homeServicePointIds.putIfAbsent(da.id(), sp.servicePointId());
+                int drone = number(da.id());
+
+                for (Schedule s : da.availability()) {
+                    // schedules missing a day or a time, or ending before they start, can never match
+                    if (s.dayOfWeek() == null || s.from() == null || s.until() == null || s.until().isBefore(s.from())) {
+                        continue;
+                    }
+                    dayMasks[drone] |= 1 << s.dayOfWeek().ordinal();
+                    long dayStart = s.dayOfWeek().ordinal() * NANOS_PER_DAY;
+                    shifts.add(new long[]{dayStart + s.from().toNanoOfDay(), dayStart + s.until().toNanoOfDay(), drone});
+                }
+            }
+        }
+
+        TreeSet<Long> points = new TreeSet<>();
+        for (long[] shift : shifts) {
+            points.add(shift[0]);
+            points.add(shift[1]);
+        }
+        boundaries = points.stream().mapToLong(Long::longValue).toArray();
+        atBoundary = new BitSet[boundaries.length];
+        afterBoundary = new BitSet[boundaries.length];
+        sweep(shifts);
+    }
+
+    // walks the boundaries in order keeping count of how many open shifts each drone has,
+    // since two shifts of the same drone may overlap
+    private void sweep(List<long[]> shifts) {
+        List<List<Integer>> starting = new ArrayList<>();
+        List<List<Integer>> ending = new ArrayList<>();
+        for (int i = 0; i < boundaries.length; i++) {
+            starting.add(new ArrayList<>());
+            ending.add(new ArrayList<>());
+        }
+        for (long[] shift : shifts) {
+            starting.get(Arrays.binarySearch(boundaries, shift[0])).add((int) shift[2]);
+            ending.get(Arrays.binarySearch(boundaries, shift[1])).add((int) shift[2]);
+        }
+
+        int[] openShifts = new int[droneIds.size()];
+        BitSet active = new BitSet(droneIds.size());
+        for (int i = 0; i < boundaries.length; i++) {
+            for (int drone : starting.get(i)) {
+                openShifts[drone]++;
+                active.set(drone);
+            }
+            atBoundary[i] = (BitSet) active.clone();
+
+            for (int drone : ending.get(i)) {
+                if (--openShifts[drone] == 0) {
+                    active.clear(drone);
+                }
+            }
+            afterBoundary[i] = (BitSet) active.clone();
+        }
+    }
+
+    private int number(String droneId) {
+        Integer existing = droneNumbers.get(droneId);
+        if (existing != null) {
+            return existing;
+        }
+
+        int drone = droneIds.size();
+        droneIds.add(droneId);
+        droneNumbers.put(droneId, drone);
+        if (drone == dayMasks.length) {
+            dayMasks = Arrays.copyOf(dayMasks, Math.max(8, drone * 2));
+        }
+        return drone;
+    }
+
+    // null if no service point lists the drone
+    public Integer homeServicePointId(String droneId) {
+        return homeServicePointIds.get(droneId);
+    }
+
+    // a missing date or time puts no restriction on the drone, shift ends are inclusive
+    public boolean isAvailable(String droneId, LocalDate date, LocalTime time) {
+        if (date == null || time == null) return true;
+
+        Integer drone = droneNumbers.get(droneId);
+        if (drone == null || (dayMasks[drone] & (1 << date.getDayOfWeek().ordinal())) == 0) {
+            return false;
+        }
+        return onShift(date, time).get(drone);
+    }
+
+    // ids of the drones that can take every one of the orders: on shift at each order's time and
+    // meeting the combined cooling, heating and capacity requirements, in fleet order
+    public List<String> availableFor(List<Drone> drones, List<MedDispatchRec> orders) {
+        if (orders == null || orders.isEmpty()) return List.of();
+
+        boolean needsCooling = false, needsHeating = false, timed = false;
+        double capacity = 0;
+        BitSet onShiftForAll = new BitSet();
+        onShiftForAll.set(0, droneIds.size());
+
+        for (MedDispatchRec order : orders) {
+            needsCooling |= Boolean.TRUE.equals(order.requirements().cooling());
+            needsHeating |= Boolean.TRUE.equals(order.requirements().heating());
+            capacity = Math.max(capacity, order.requirements().capacity());
+
+            if (order.date() != null && order.time() != null) {
+                timed = true;
+                onShiftForAll.and(onShift(order.date(), order.time()));
+            }
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (Drone drone : drones) {
+            if (drone.capability() == null) continue;
+            if (needsCooling && !drone.capability().cooling()) continue;
+            if (needsHeating && !drone.capability().heating()) continue;
+            if (capacity > drone.capability().capacity()) continue;
+
+            if (timed) {
+                Integer number = droneNumbers.get(drone.id());
+                if (number == null || !onShiftForAll.get(number)) continue;
+            }
+            ids.add(drone.id());
+        }
+        return ids;
+    }
+
+    // the stored cell for that moment, must not be modified
+    private BitSet onShift(LocalDate date, LocalTime time) {
+        long moment = date.getDayOfWeek().ordinal() * NANOS_PER_DAY + time.toNanoOfDay();
+
+        int index = Arrays.binarySearch(boundaries, moment);
+        if (index >= 0) {
+            return atBoundary[index];
+        }
+        int before = -index - 2;
+        return before < 0 ? new BitSet() : afterBoundary[before];
+    }
+}
@@ -0,0 +1,217 @@
+package ilp.samad.ilpcoursework1.service.query;
+
+import ilp.samad.ilpcoursework1.data.drone.Drone;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery.Condition;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery.Flag;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery.FlagCondition;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery.Never;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery.Numeric;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery.NumericCondition;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery.Text;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery.TextCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// column index over one snapshot of the fleet. a drone is identified by its position in the
+// snapshot, boolean fields become bitsets, numeric fields a sorted array searched by range and
+// text fields a value -> bitset map, so a query is a handful of bitset intersections instead of
+// a pass over every drone per condition. columns are built the first time they are queried
+public final class DroneIndex {
+
+    private final List<Drone> drones;
+    private final BitSet all;
+    private final BitSet withCapability;
+
+    private final Map<String, BitSet> flagColumns = new ConcurrentHashMap<>();
+    private final Map<String, SortedColumn> numericColumns = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, BitSet>> textColumns = new ConcurrentHashMap<>();
+
+    public DroneIndex(List<Drone> drones) {
+        this.drones = drones;
+        this.all = new BitSet(drones.size());
+        this.all.set(0, drones.size());
+        this.withCapability = new BitSet(drones.size());
+        for (int i = 0; i < drones.size(); i++) {
+            if (drones.get(i).capability() != null) {
+                withCapability.set(i);
+            }
+        }
+    }
+
+    public int size() {
+        return drones.size();
+    }
+
+    // ids of the drones matching every condition, in snapshot order
+    public List<String> ids(List<Condition> conditions) {
+        BitSet matches = (BitSet) all.clone();
+        for (Condition condition : conditions) {
+            matches.and(select(condition));
+            if (matches.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<String> ids = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            ids.add(drones.get(i).id());
+        }
+        return ids;
+    }
+
+    // positions of the drones matching the condition, the result is safe to modify
+    public BitSet select(Condition condition) {
+        return switch (condition) {
+            case FlagCondition flag -> selectFlag(flag);
+            case NumericCondition numeric -> selectNumeric(numeric);
+            case TextCondition text -> selectText(text);
+            case Never never -> new BitSet();
+        };
+    }
+
+    private BitSet selectFlag(FlagCondition condition) {
+        BitSet set = (BitSet) flagColumn(condition.attribute()).clone();
+        boolean wantSet = condition.operator().equals("=") == condition.constant();
+        if (!wantSet) {
+            set.flip(0, drones.size());
+            set.and(withCapability);
+        }
+        return set;
+    }
+
+    private BitSet selectNumeric(NumericCondition condition) {
+        SortedColumn column = numericColumn(condition.attribute());
+        double constant = condition.constant();
+
+        // NaN compares false with everything, so only != can match
+        if (Double.isNaN(constant)) {
+            return condition.operator().equals("!=") ? (BitSet) withCapability.clone() : new BitSet();
+        }
+
+        return switch (condition.operator()) {
+            case "<" -> column.positions(0, column.lowerBound(constant));
+            case ">" -> column.positions(column.upperBound(constant), column.length());
+            case "=" -> column.positions(column.lowerBound(constant), column.upperBound(constant));
+            default -> {
+                BitSet set = (BitSet) withCapability.clone();
+                set.andNot(column.positions(column.lowerBound(constant), column.upperBound(constant)));
+                yield set;
+            }
+        };
+    }
+
+    private BitSet selectText(TextCondition condition) {
+        BitSet equal = textColumn(condition.attribute()).get(condition.constant());
+        if (condition.operator().equals("=")) {
+            return equal == null ? new BitSet() : (BitSet) equal.clone();
+        }
+
+        BitSet set = (BitSet) all.clone();
+        if (equal != null) {
+            set.andNot(equal);
+        }
+        return set;
+    }
+
+    private BitSet flagColumn(Flag attribute) {
+        return flagColumns.computeIfAbsent(attribute.name(), name -> {
+            BitSet set = new BitSet(drones.size());
+            for (int i = withCapability.nextSetBit(0); i >= 0; i = withCapability.nextSetBit(i + 1)) {
+                if (attribute.value().test(drones.get(i).capability())) {
+                    set.set(i);
+                }
+            }
+            return set;
+        });
+    }
+
+    private SortedColumn numericColumn(Numeric attribute) {
+        return numericColumns.computeIfAbsent(attribute.name(), name -> {
+            int count = withCapability.cardinality();
+            double[] values = new double[count];
+            int[] positions = new int[count];
+
+            int n = 0;
+            for (int i = withCapability.nextSetBit(0); i >= 0; i = withCapability.nextSetBit(i + 1)) {
+                double value = attribute.value().applyAsDouble(drones.get(i).capability());
+                // NaN never matches <, > or =, and != is answered from withCapability
+                if (!Double.isNaN(value)) {
+                    values[n] = value;
+                    positions[n] = i;
+                    n++;
+                }
+            }
+            return SortedColumn.of(Arrays.copyOf(values, n), Arrays.copyOf(positions, n));
+        });
+    }
+
+    private Map<String, BitSet> textColumn(Text attribute) {
+        return textColumns.computeIfAbsent(attribute.name(), name -> {
+            Map<String, BitSet> column = new HashMap<>();
+            for (int i = 0; i < drones.size(); i++) {
+                column.computeIfAbsent(attribute.textOf(drones.get(i)), key -> new BitSet()).set(i);
+            }
+            return column;
+        });
+    }
+
+    // values ascending with the snapshot position each came from
+    private record SortedColumn(double[] values, int[] positions) {
+
+        static SortedColumn of(double[] values, int[] positions) {
+            Integer[] order = new Integer[values.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+            double[] sortedValues = new double[values.length];
+            int[] sortedPositions = new int[values.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedValues[i] = values[order[i]];
+                sortedPositions[i] = positions[order[i]];
+            }
+            return new SortedColumn(sortedValues, sortedPositions);
+        }
+
+        int length() {
+            return values.length;
+        }
+
+        // first index whose value is >= target (-0.0 and 0.0 count as equal, as with ==)
+        int lowerBound(double target) {
+            int low = 0, high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < target) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        // first index whose value is > target
+        int upperBound(double target) {
+            int low = 0, high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= target) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        BitSet positions(int from, int to) {
+            BitSet set = new BitSet();
+            for (int i = from; i < to; i++) {
+                set.set(positions[i]);
+            }
+            return set;
+        }
+    }
+}
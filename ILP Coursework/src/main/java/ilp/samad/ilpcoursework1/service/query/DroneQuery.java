@@ -0,0 +1,149 @@
+package ilp.samad.ilpcoursework1.service.query;
+
+import ilp.samad.ilpcoursework1.data.drone.Capability;
+import ilp.samad.ilpcoursework1.data.drone.Drone;
+import ilp.samad.ilpcoursework1.data.request.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+// turns queries into typed conditions over the drone records, resolving the attribute
+// accessor, the operator and the parsed constant once up front. matches exactly what comparing
+// against objectMapper.valueToTree(drone).findValue(attribute) used to give
+public final class DroneQuery {
+
+    // every attribute findValue could reach on a serialised drone
+    private static final Map<String, Accessor> ATTRIBUTES = Map.of(
+            "id", new Text("id", Drone::id),
+            "name", new Text("name", Drone::name),
+            // an object node's text is empty, a null capability serialises as "null"
+            "capability", new Text("capability", drone -> drone.capability() == null ? null : ""),
+            "cooling", new Flag("cooling", Capability::cooling),
+            "heating", new Flag("heating", Capability::heating),
+            "capacity", new Numeric("capacity", Capability::capacity),
+            "maxMoves", new Numeric("maxMoves", Capability::maxMoves),
+            "costPerMove", new Numeric("costPerMove", Capability::costPerMove),
+            "costInitial", new Numeric("costInitial", Capability::costInitial),
+            "costFinal", new Numeric("costFinal", Capability::costFinal)
+    );
+
+    private DroneQuery() {}
+
+    // all queries have to hold, an empty list matches every drone
+    public static List<Condition> conditions(List<Query> queries) {
+        List<Condition> conditions = new ArrayList<>(queries.size());
+        for (Query query : queries) {
+            conditions.add(condition(query.attribute(), query.operator(), query.value()));
+        }
+        return conditions;
+    }
+
+    public static Condition condition(String attribute, String operator, String value) {
+        Accessor accessor = attribute == null ? null : ATTRIBUTES.get(attribute);
+        if (accessor == null || operator == null) {
+            return new Never();
+        }
+
+        return switch (accessor) {
+            case Numeric numeric -> numeric(numeric, operator, value);
+            case Flag flag -> flag(flag, operator, value);
+            case Text text -> text(text, operator, value);
+        };
+    }
+
+    private static Condition numeric(Numeric attribute, String operator, String value) {
+        double constant;
+        try {
+            constant = Double.parseDouble(value);
+        } catch (NumberFormatException | NullPointerException e) {
+            return new Never();
+        }
+
+        return switch (operator) {
+            case "<", ">", "!=", "=" -> new NumericCondition(attribute, operator, constant);
+            default -> new Never();
+        };
+    }
+
+    private static Condition flag(Flag attribute, String operator, String value) {
+        return switch (operator) {
+            case "=", "!=" -> new FlagCondition(attribute, operator, Boolean.parseBoolean(value));
+            default -> new Never();
+        };
+    }
+
+    private static Condition text(Text attribute, String operator, String value) {
+        return switch (operator) {
+            case "=", "!=" -> new TextCondition(attribute, operator, value);
+            default -> new Never();
+        };
+    }
+
+    // a single compiled query, usable directly as a predicate or answered from a DroneIndex
+    public sealed interface Condition extends Predicate<Drone>
+            permits NumericCondition, FlagCondition, TextCondition, Never {}
+
+    // capability fields can't be found at all when the capability itself is missing
+    public record NumericCondition(Numeric attribute, String operator, double constant) implements Condition {
+        @Override
+        public boolean test(Drone drone) {
+            if (drone.capability() == null) {
+                return false;
+            }
+            double value = attribute.value().applyAsDouble(drone.capability());
+            return switch (operator) {
+                case "<" -> value < constant;
+                case ">" -> value > constant;
+                case "!=" -> value != constant;
+                default -> value == constant;
+            };
+        }
+    }
+
+    public record FlagCondition(Flag attribute, String operator, boolean constant) implements Condition {
+        @Override
+        public boolean test(Drone drone) {
+            if (drone.capability() == null) {
+                return false;
+            }
+            boolean value = attribute.value().test(drone.capability());
+            return operator.equals("=") ? value == constant : value != constant;
+        }
+    }
+
+    public record TextCondition(Text attribute, String operator, String constant) implements Condition {
+        @Override
+        public boolean test(Drone drone) {
+            boolean equal = attribute.textOf(drone).equals(constant);
+            return operator.equals("=") == equal;
+        }
+    }
+
+    // unknown attribute, unsupported operator or a constant that doesn't parse
+    public record Never() implements Condition {
+        @Override
+        public boolean test(Drone drone) {
+            return false;
+        }
+    }
+
+    public sealed interface Accessor permits Numeric, Flag, Text {
+        String name();
+    }
+
+    public record Numeric(String name, ToDoubleFunction<Capability> value) implements Accessor {}
+
+    public record Flag(String name, Predicate<Capability> value) implements Accessor {}
+
+    public record Text(String name, Function<Drone, String> value) implements Accessor {
+        // a null field is a NullNode in the tree, whose text is "null"
+        public String textOf(Drone drone) {
+            String text = value.apply(drone);
+            return text == null ? "null" : text;
+        }
+    }
+}
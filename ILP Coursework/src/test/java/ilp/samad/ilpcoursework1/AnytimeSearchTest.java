@@ -0,0 +1,140 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.AnytimeSearch;
+import ilp.samad.ilpcoursework1.service.path.BoundedPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnytimeSearchTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+
+    private CalculationService calculationService;
+    private PathService pathService;
+    private List<RestrictedArea> wall;
+    private ZoneIndex wallIndex;
+    private LngLat westOfWall;
+    private LngLat eastOfWall;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        pathService = new PathService(calculationService, new PathCache(0));
+
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+        wallIndex = new ZoneIndex(wall);
+        westOfWall = new LngLat(-3.1900, 55.9446);
+        eastOfWall = new LngLat(-3.1855, 55.9441);
+    }
+
+    private static RestrictedArea rectangle(double minLng, double minLat, double maxLng, double maxLat) {
+        return new RestrictedArea("pocket", 1, null, List.of(
+                new LngLat(minLng, minLat), new LngLat(maxLng, minLat),
+                new LngLat(maxLng, maxLat), new LngLat(minLng, maxLat),
+                new LngLat(minLng, minLat)));
+    }
+
+    private void assertValidPath(List<LngLat> path, LngLat start, LngLat end) {
+        assertFalse(path.isEmpty(), "A path should have been found.");
+        assertEquals(start, path.getFirst(), "Path should begin exactly at the start.");
+        assertTrue(calculationService.calculateClose(path.getLast(), end), "Path should end close to the goal.");
+
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(MOVE_DISTANCE, calculationService.calculateDistance(path.get(i - 1), path.get(i)), 1e-12);
+            assertFalse(wallIndex.isMoveInvalid(path.get(i - 1), path.get(i)), "Step " + i + " enters a no-fly zone.");
+        }
+    }
+
+    @Test
+    @DisplayName("findPathWithin - Standard: Given time to finish, a factor of 1 gives a path as short as findPath")
+    void testTightensToShortest() {
+        List<LngLat> flat = pathService.findPath(westOfWall, eastOfWall, wall);
+        BoundedPath anytime = pathService.findPathWithin(westOfWall, eastOfWall, wall, 1.0, Duration.ofSeconds(10));
+
+        assertValidPath(anytime.path(), westOfWall, eastOfWall);
+        assertEquals(1.0, anytime.bound());
+        assertEquals(flat.size(), anytime.path().size());
+    }
+
+    @Test
+    @DisplayName("findPathWithin - Boundary: The path found when the budget runs out comes with an honest bound")
+    void testBudgetRunsOut() {
+        List<LngLat> flat = pathService.findPath(westOfWall, eastOfWall, wall);
+        BoundedPath anytime = pathService.findPathWithin(westOfWall, eastOfWall, wall, 1.0, Duration.ofMillis(200));
+
+        assertValidPath(anytime.path(), westOfWall, eastOfWall);
+        assertTrue(anytime.bound() >= 1.0);
+        assertTrue(anytime.path().size() - 1 <= (flat.size() - 1) * anytime.bound() + 1e-9,
+                anytime.path().size() + " points against " + flat.size() + " with a bound of " + anytime.bound());
+    }
+
+    @Test
+    @DisplayName("findPathWithin - Boundary: The budget covers the search for a first path too")
+    void testBudgetCoversFirstPath() {
+        // a pocket a hundred moves deep with the goal just behind its back wall, which the first
+        // pass heads straight into
+        List<RestrictedArea> pocket = List.of(
+                rectangle(-3.2000, 55.9600, -3.1845, 55.9605),
+                rectangle(-3.2000, 55.9445, -3.1845, 55.9450),
+                rectangle(-3.1850, 55.9450, -3.1845, 55.9600));
+        LngLat inside = new LngLat(-3.1860, 55.9525);
+        LngLat behind = new LngLat(-3.1835, 55.9525);
+
+        long startTime = System.nanoTime();
+        BoundedPath none = pathService.findPathWithin(westOfWall, eastOfWall, wall, 1.0, Duration.ZERO);
+        BoundedPath anytime = pathService.findPathWithin(inside, behind, pocket, 3.0, Duration.ofMillis(20));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startTime);
+
+        assertTrue(none.path().isEmpty());
+        assertFalse(none.isWithin(Double.MAX_VALUE));
+        assertTrue(elapsed.compareTo(Duration.ofMillis(200)) < 0, "Took " + elapsed + " on budgets adding up to 20ms.");
+        assertEquals(anytime.path().isEmpty(), !anytime.isWithin(Double.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("findPathWithin - Boundary: A path found within a factor is never cached for findPath")
+    void testBoundedPathNotCached() {
+        PathCache cache = new PathCache(PathCache.DEFAULT_MAX_SIZE);
+        PathService cachingService = new PathService(calculationService, cache);
+
+        BoundedPath anytime = cachingService.findPathWithin(westOfWall, eastOfWall, wall, 3.0, Duration.ofMillis(200));
+        List<LngLat> flat = cachingService.findPath(westOfWall, eastOfWall, wall);
+
+        assertValidPath(anytime.path(), westOfWall, eastOfWall);
+        assertEquals(0, cache.hits());
+        assertEquals(pathService.findPath(westOfWall, eastOfWall, wall).size(), flat.size());
+    }
+
+    @Test
+    @DisplayName("search - Negative: A goal inside a zone gives no path and no bound")
+    void testGoalInsideZone() {
+        LngLat insideWall = new LngLat(-3.18775, 55.9445);
+
+        BoundedPath anytime = AnytimeSearch.search(westOfWall, insideWall, wallIndex, 1.5, Duration.ofMillis(50), 10_000);
+
+        assertTrue(anytime.path().isEmpty());
+        assertFalse(anytime.isWithin(Double.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("findPathWithin - Negative: A factor below 1 is rejected")
+    void testFactorBelowOne() {
+        assertThrows(IllegalArgumentException.class,
+                () -> pathService.findPathWithin(westOfWall, eastOfWall, wall, 0.9, Duration.ofMillis(50)));
+    }
+}
@@ -88,6 +88,47 @@ public class ApplicationSystemTest {
         assertTrue(duration < 30000, "Performance Failure: Path calculation took too long (" + duration + "ms)");
     }
 
+    @Test
+    @DisplayName("POST /api/v1/calcDeliveryPath with a deadline - Returns the best plan found in time")
+    void testCalcDeliveryPathWithDeadline() throws Exception {
+        String ordersJson = """
+        [
+          {
+            "id": 301,
+            "date": "2025-12-01",
+            "time": "10:00:00",
+            "delivery": { "lng": -3.1910, "lat": 55.9455 },
+            "requirements": { "capacity": 1.0, "cooling": true, "heating": false, "maxCost": 25.0 }
+          }
+        ]
+        """;
+
+        long startTime = System.currentTimeMillis();
+
+        mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .param("deadline", "PT2S")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ordersJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCost").exists())
+                .andExpect(jsonPath("$.dronePaths").isArray());
+
+        long duration = System.currentTimeMillis() - startTime;
+
+        // some slack on top of the deadline for fetching reference data and writing the response
+        assertTrue(duration < 5000, "Deadline Failure: Path calculation took too long (" + duration + "ms)");
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/calcDeliveryPath with a zero deadline should return 400 Bad Request")
+    void testCalcDeliveryPathWithZeroDeadline() throws Exception {
+        mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .param("deadline", "PT0S")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Pro-Rata Cost Check - Verify distribution across batched flight")
     void testProRataCostDistribution() throws Exception {
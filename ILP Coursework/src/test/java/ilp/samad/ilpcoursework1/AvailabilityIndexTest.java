@@ -0,0 +1,157 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.drone.Capability;
+import ilp.samad.ilpcoursework1.data.drone.Drone;
+import ilp.samad.ilpcoursework1.data.drone.DroneAvailability;
+import ilp.samad.ilpcoursework1.data.drone.Schedule;
+import ilp.samad.ilpcoursework1.data.drone.ServicePointDrones;
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
+import ilp.samad.ilpcoursework1.data.request.Requirements;
+import ilp.samad.ilpcoursework1.service.query.AvailabilityIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvailabilityIndexTest {
+
+    // 2025-12-01 is a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 1);
+
+    private AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Schedule mondayMorning = new Schedule(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(12, 0));
+        Schedule tuesday = new Schedule(DayOfWeek.TUESDAY, LocalTime.of(0, 0), LocalTime.of(23, 59, 59));
+
+        index = new AvailabilityIndex(List.of(
+                new ServicePointDrones(1, List.of(new DroneAvailability("1", List.of(mondayMorning)))),
+                new ServicePointDrones(2, List.of(
+                        new DroneAvailability("1", List.of(tuesday)),
+                        new DroneAvailability("2", List.of())))));
+    }
+
+    @Test
+    @DisplayName("homeServicePointId - Standard: First service point listing the drone wins")
+    void testHomeServicePoint() {
+        assertEquals(1, index.homeServicePointId("1"));
+        assertEquals(2, index.homeServicePointId("2"));
+        assertNull(index.homeServicePointId("3"));
+    }
+
+    @Test
+    @DisplayName("isAvailable - Standard: Shifts listed under different service points are merged")
+    void testShiftsMerged() {
+        assertTrue(index.isAvailable("1", MONDAY, LocalTime.of(10, 0)));
+        assertTrue(index.isAvailable("1", MONDAY.plusDays(1), LocalTime.of(22, 0)));
+        assertFalse(index.isAvailable("1", MONDAY.plusDays(2), LocalTime.of(10, 0)));
+    }
+
+    @Test
+    @DisplayName("isAvailable - Boundary: Both ends of a shift are inclusive, one nanosecond outside is not")
+    void testShiftEdges() {
+        assertTrue(index.isAvailable("1", MONDAY, LocalTime.of(9, 0)));
+        assertTrue(index.isAvailable("1", MONDAY, LocalTime.of(12, 0)));
+        assertFalse(index.isAvailable("1", MONDAY, LocalTime.of(12, 0, 0, 1)));
+        assertFalse(index.isAvailable("1", MONDAY, LocalTime.of(8, 59, 59, 999_999_999)));
+    }
+
+    @Test
+    @DisplayName("isAvailable - Negative: Unknown drone or drone with no shifts is never available")
+    void testUnknownDrone() {
+        assertFalse(index.isAvailable("2", MONDAY, LocalTime.of(10, 0)));
+        assertFalse(index.isAvailable("404", MONDAY, LocalTime.of(10, 0)));
+        assertTrue(index.isAvailable("404", null, LocalTime.of(10, 0)), "A missing date puts no restriction on the drone.");
+    }
+
+    @Test
+    @DisplayName("isAvailable - Standard: Overlapping shifts of one drone keep it on shift until the last ends")
+    void testOverlappingShifts() {
+        AvailabilityIndex overlapping = new AvailabilityIndex(List.of(new ServicePointDrones(1, List.of(
+                new DroneAvailability("1", List.of(
+                        new Schedule(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(12, 0)),
+                        new Schedule(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0)))),
+                new DroneAvailability("2", List.of(
+                        new Schedule(DayOfWeek.MONDAY, LocalTime.of(12, 0), LocalTime.of(12, 0))))))));
+
+        assertTrue(overlapping.isAvailable("1", MONDAY, LocalTime.of(12, 0)));
+        assertTrue(overlapping.isAvailable("2", MONDAY, LocalTime.of(12, 0)));
+        assertTrue(overlapping.isAvailable("1", MONDAY, LocalTime.of(13, 0)));
+        assertFalse(overlapping.isAvailable("2", MONDAY, LocalTime.of(13, 0)));
+        assertFalse(overlapping.isAvailable("1", MONDAY, LocalTime.of(14, 0, 1)));
+        assertFalse(overlapping.isAvailable("1", MONDAY, LocalTime.of(8, 0)));
+    }
+
+    @Test
+    @DisplayName("availableFor - Standard: Agrees with checking every order against every schedule")
+    void testMatchesScan() {
+        Random random = new Random(5);
+        List<ServicePointDrones> availability = new ArrayList<>();
+        List<Drone> drones = new ArrayList<>();
+        for (int sp = 0; sp < 3; sp++) {
+            List<DroneAvailability> listed = new ArrayList<>();
+            for (int d = 0; d < 20; d++) {
+                List<Schedule> schedules = new ArrayList<>();
+                for (int k = random.nextInt(4); k > 0; k--) {
+                    int from = random.nextInt(24);
+                    schedules.add(new Schedule(DayOfWeek.of(1 + random.nextInt(7)),
+                            LocalTime.of(from, 0), LocalTime.of(Math.min(23, from + random.nextInt(6)), 30)));
+                }
+                listed.add(new DroneAvailability(String.valueOf(random.nextInt(30)), schedules));
+            }
+            availability.add(new ServicePointDrones(sp, listed));
+        }
+        for (int d = 0; d < 35; d++) {
+            drones.add(new Drone(String.valueOf(d), "Drone " + d, new Capability(random.nextBoolean(),
+                    random.nextBoolean(), random.nextInt(6), 2000, 0.01, 1.0, 1.0)));
+        }
+        AvailabilityIndex randomIndex = new AvailabilityIndex(availability);
+
+        for (int trial = 0; trial < 300; trial++) {
+            List<MedDispatchRec> orders = new ArrayList<>();
+            for (int k = 1 + random.nextInt(3); k > 0; k--) {
+                LocalDate date = random.nextInt(10) == 0 ? null : MONDAY.plusDays(random.nextInt(7));
+                LocalTime time = LocalTime.of(random.nextInt(24), random.nextBoolean() ? 0 : 30);
+                orders.add(new MedDispatchRec(k, date, time, new Requirements((double) random.nextInt(5),
+                        random.nextBoolean() ? true : null, random.nextInt(4) == 0, null), new LngLat(0.0, 0.0)));
+            }
+
+            List<String> expected = drones.stream()
+                    .filter(drone -> orders.stream().allMatch(order -> scanCanHandle(availability, drone, order)))
+                    .map(Drone::id)
+                    .toList();
+            assertEquals(expected, randomIndex.availableFor(drones, orders), "Mismatch for " + orders);
+        }
+    }
+
+    // the nested loop check the index replaced
+    private static boolean scanCanHandle(List<ServicePointDrones> availability, Drone drone, MedDispatchRec order) {
+        if (Boolean.TRUE.equals(order.requirements().cooling()) && !drone.capability().cooling()) return false;
+        if (Boolean.TRUE.equals(order.requirements().heating()) && !drone.capability().heating()) return false;
+        if (order.requirements().capacity() > drone.capability().capacity()) return false;
+        if (order.date() == null || order.time() == null) return true;
+
+        for (ServicePointDrones sp : availability) {
+            for (DroneAvailability da : sp.drones()) {
+                if (!da.id().equals(drone.id())) continue;
+                for (Schedule s : da.availability()) {
+                    if (s.dayOfWeek() == order.date().getDayOfWeek()
+                            && !order.time().isBefore(s.from()) && !order.time().isAfter(s.until())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,132 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.BidirectionalSearch;
+import ilp.samad.ilpcoursework1.service.path.PathfindingMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BidirectionalSearchTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+    private static final int MAX_EXPANSIONS = 500_000;
+
+    private CalculationService calculationService;
+    private PathService pathService;
+    private List<RestrictedArea> wall;
+    private ZoneIndex wallIndex;
+    private LngLat westOfWall;
+    private LngLat eastOfWall;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        pathService = new PathService(calculationService, new PathCache(0), PathfindingMode.FLAT);
+
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+        wallIndex = new ZoneIndex(wall);
+        westOfWall = new LngLat(-3.1910, 55.9446);
+        eastOfWall = new LngLat(-3.1840, 55.9441);
+    }
+
+    private void assertValidPath(List<LngLat> path, LngLat start, LngLat end) {
+        assertFalse(path.isEmpty(), "A path should have been found.");
+        assertEquals(start, path.getFirst(), "Path should begin exactly at the start.");
+        assertTrue(calculationService.calculateClose(path.getLast(), end), "Path should end close to the goal.");
+
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(MOVE_DISTANCE, calculationService.calculateDistance(path.get(i - 1), path.get(i)), 1e-12);
+            assertFalse(wallIndex.isMoveInvalid(path.get(i - 1), path.get(i)), "Step " + i + " enters a no-fly zone.");
+        }
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Bidirectional path round a zone is valid and within a move of flat A*")
+    void testAgainstFlat() {
+        List<LngLat> flat = pathService.findPath(westOfWall, eastOfWall, wall);
+        List<LngLat> bidirectional = BidirectionalSearch.search(westOfWall, eastOfWall, wallIndex, MAX_EXPANSIONS);
+
+        assertValidPath(bidirectional, westOfWall, eastOfWall);
+        assertTrue(bidirectional.size() <= flat.size() + 1,
+                "Bidirectional path of " + bidirectional.size() + " points against " + flat.size() + " from flat A*.");
+    }
+
+    @Test
+    @DisplayName("search - Standard: Random legs round a zone are never shorter and at most a move longer than flat A*")
+    void testRandomLegsAgainstFlat() {
+        Random random = new Random(5);
+
+        for (int leg = 0; leg < 12; leg++) {
+            LngLat start = nearWall(random);
+            LngLat goal = nearWall(random);
+            List<LngLat> flat = pathService.findPath(start, goal, wall);
+            List<LngLat> bidirectional = BidirectionalSearch.search(start, goal, wallIndex, MAX_EXPANSIONS);
+
+            assertValidPath(bidirectional, start, goal);
+            assertTrue(bidirectional.size() >= flat.size() && bidirectional.size() <= flat.size() + 1,
+                    "Bidirectional path of " + bidirectional.size() + " points against " + flat.size()
+                            + " from flat A* for the leg from " + start + " to " + goal);
+        }
+    }
+
+    @Test
+    @DisplayName("findPath - Boundary: A bidirectional path is cached apart from the flat path for the same leg")
+    void testCachedApartFromFlat() {
+        PathCache pathCache = new PathCache(PathCache.DEFAULT_MAX_SIZE);
+        PathService cachingService = new PathService(calculationService, pathCache, PathfindingMode.FLAT);
+
+        cachingService.findPath(westOfWall, eastOfWall, wall, PathfindingMode.BIDIRECTIONAL);
+        List<LngLat> flat = cachingService.findPath(westOfWall, eastOfWall, wall);
+
+        assertEquals(pathService.findPath(westOfWall, eastOfWall, wall), flat);
+        assertEquals(2, pathCache.misses());
+    }
+
+    // anywhere up to 25 moves round the wall, outside it
+    private LngLat nearWall(Random random) {
+        LngLat point;
+        do {
+            point = new LngLat(-3.18775 + (random.nextDouble() * 2 - 1) * 25 * MOVE_DISTANCE,
+                    55.9445 + (random.nextDouble() * 2 - 1) * 25 * MOVE_DISTANCE);
+        } while (wallIndex.isInAnyZone(point.lng(), point.lat()));
+        return point;
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Mode can be chosen per call on a service configured for flat A*")
+    void testModePerCall() {
+        List<LngLat> path = pathService.findPath(westOfWall, eastOfWall, wall, PathfindingMode.BIDIRECTIONAL);
+
+        assertValidPath(path, westOfWall, eastOfWall);
+    }
+
+    @Test
+    @DisplayName("search - Boundary: Goal already within a move of the start needs no moves")
+    void testGoalNextToStart() {
+        LngLat goal = new LngLat(westOfWall.lng() + 0.5 * MOVE_DISTANCE, westOfWall.lat());
+
+        assertEquals(List.of(westOfWall), BidirectionalSearch.search(westOfWall, goal, wallIndex, MAX_EXPANSIONS));
+    }
+
+    @Test
+    @DisplayName("search - Negative: Goal inside a zone gives no path")
+    void testGoalInsideZone() {
+        LngLat insideWall = new LngLat(-3.18775, 55.9445);
+
+        assertTrue(BidirectionalSearch.search(westOfWall, insideWall, wallIndex, 20_000).isEmpty());
+    }
+}
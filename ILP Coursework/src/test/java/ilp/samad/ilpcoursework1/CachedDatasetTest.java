@@ -0,0 +1,160 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.service.cache.CachedDataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedDatasetTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private AdjustableClock clock;
+    private AtomicInteger fetches;
+    private CachedDataset<Integer> dataset;
+
+    // lets a test move time forward without sleeping
+    private static class AdjustableClock extends Clock {
+        private Instant now = Instant.parse("2025-12-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        clock = new AdjustableClock();
+        fetches = new AtomicInteger();
+        // runs the background refresh inline so its effect is visible straight away
+        dataset = new CachedDataset<>("test", fetches::incrementAndGet, TTL, Runnable::run, clock);
+    }
+
+    @Test
+    @DisplayName("get - Standard: Only the first read fetches while the snapshot is fresh")
+    void testFreshSnapshotReused() {
+        assertEquals(1, dataset.get());
+        clock.advance(TTL.minusSeconds(1));
+        assertEquals(1, dataset.get());
+
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    @DisplayName("get - Boundary: Stale snapshot is still returned while it is refreshed")
+    void testStaleWhileRefreshing() {
+        dataset.get();
+        clock.advance(TTL);
+
+        assertEquals(1, dataset.get(), "The read that notices staleness should not wait for the new copy.");
+        assertEquals(2, dataset.get());
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    @DisplayName("get - Negative: Failed refresh keeps serving the previous snapshot")
+    void testFailedRefreshKeepsSnapshot() {
+        AtomicInteger calls = new AtomicInteger();
+        CachedDataset<String> flaky = new CachedDataset<>("flaky", () -> {
+            if (calls.incrementAndGet() > 1) throw new IllegalStateException("upstream down");
+            return "first";
+        }, TTL, Runnable::run, clock);
+
+        flaky.get();
+        clock.advance(TTL);
+
+        assertEquals("first", flaky.get());
+        assertEquals("first", flaky.get());
+    }
+
+    @Test
+    @DisplayName("get - Negative: First load failure is thrown and the next read tries again")
+    void testFirstLoadFailure() {
+        AtomicInteger calls = new AtomicInteger();
+        CachedDataset<String> flaky = new CachedDataset<>("flaky", () -> {
+            if (calls.incrementAndGet() == 1) throw new IllegalStateException("upstream down");
+            return "second";
+        }, TTL, Runnable::run, clock);
+
+        assertThrows(IllegalStateException.class, flaky::get);
+        assertFalse(flaky.isLoaded());
+        assertEquals("second", flaky.get());
+    }
+
+    @Test
+    @DisplayName("get - Standard: A not-modified refresh keeps the same snapshot and restarts its ttl")
+    void testNotModifiedKeepsSnapshot() {
+        List<String> validatorsSent = new ArrayList<>();
+        List<String> first = List.of("a");
+        CachedDataset<List<String>> conditional = new CachedDataset<>("conditional", (etag, lastModified) -> {
+            validatorsSent.add(etag + " / " + lastModified);
+            return etag == null
+                    ? CachedDataset.Fetch.of(first, "\"v1\"", "Mon, 01 Dec 2025 10:00:00 GMT")
+                    : CachedDataset.Fetch.unchanged();
+        }, TTL, Runnable::run, clock);
+        AtomicInteger computations = new AtomicInteger();
+        Supplier<Integer> derived = conditional.derive(value -> computations.incrementAndGet());
+
+        derived.get();
+        clock.advance(TTL);
+        assertSame(first, conditional.get());
+        clock.advance(TTL.minusSeconds(1));
+        assertSame(first, conditional.get());
+
+        assertEquals(List.of("null / null", "\"v1\" / Mon, 01 Dec 2025 10:00:00 GMT"), validatorsSent);
+        assertEquals(1, derived.get(), "Nothing derived from an unchanged snapshot should be rebuilt.");
+    }
+
+    @Test
+    @DisplayName("invalidate - Standard: Next read fetches again")
+    void testInvalidate() {
+        dataset.get();
+        dataset.invalidate();
+
+        assertEquals(2, dataset.get());
+    }
+
+    @Test
+    @DisplayName("derive - Standard: Derived value is only recomputed once the snapshot changes")
+    void testDerive() {
+        AtomicInteger computations = new AtomicInteger();
+        Supplier<String> derived = dataset.derive(value -> {
+            computations.incrementAndGet();
+            return "v" + value;
+        });
+
+        assertEquals("v1", derived.get());
+        assertEquals("v1", derived.get());
+        dataset.refresh();
+
+        assertEquals("v2", derived.get());
+        assertEquals(2, computations.get());
+    }
+}
@@ -0,0 +1,123 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.ClusterGraph;
+import ilp.samad.ilpcoursework1.service.path.PathfindingMode;
+import ilp.samad.ilpcoursework1.service.path.SearchArea;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterGraphTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+    private static final double CLUSTER_SIZE = 10 * MOVE_DISTANCE;
+
+    private CalculationService calculationService;
+    private PathService flatService;
+    private PathService hierarchicalService;
+    private List<RestrictedArea> wall;
+    private ZoneIndex wallIndex;
+    // far enough either side of the wall for the leg to be planned over the cluster graph
+    private LngLat westOfWall;
+    private LngLat eastOfWall;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        flatService = new PathService(calculationService, new PathCache(0), PathfindingMode.FLAT);
+        hierarchicalService = new PathService(calculationService, new PathCache(0), PathfindingMode.HIERARCHICAL);
+
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+        wallIndex = new ZoneIndex(wall);
+        westOfWall = new LngLat(-3.1910, 55.9446);
+        eastOfWall = new LngLat(-3.1840, 55.9441);
+    }
+
+    private void assertValidPath(List<LngLat> path, LngLat start, LngLat end) {
+        assertFalse(path.isEmpty(), "A path should have been found.");
+        assertEquals(start, path.getFirst(), "Path should begin exactly at the start.");
+        assertTrue(calculationService.calculateClose(path.getLast(), end), "Path should end close to the goal.");
+
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(MOVE_DISTANCE, calculationService.calculateDistance(path.get(i - 1), path.get(i)), 1e-12);
+            assertFalse(wallIndex.isMoveInvalid(path.get(i - 1), path.get(i)), "Step " + i + " enters a no-fly zone.");
+        }
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Hierarchical path round a zone is valid and close to flat A*")
+    void testHierarchicalAgainstFlat() {
+        List<LngLat> flat = flatService.findPath(westOfWall, eastOfWall, wall);
+        List<LngLat> hierarchical = hierarchicalService.findPath(westOfWall, eastOfWall, wall);
+
+        assertValidPath(hierarchical, westOfWall, eastOfWall);
+        assertTrue(hierarchical.size() >= flat.size(), "Flat A* always takes the fewest moves.");
+        assertTrue(hierarchical.size() - 1 <= (flat.size() - 1) * 1.1,
+                "Hierarchical path of " + hierarchical.size() + " points against " + flat.size() + " from flat A*.");
+    }
+
+    @Test
+    @DisplayName("waypoints - Standard: A leg past the zone is routed through entrances outside it")
+    void testWaypointsAvoidZone() {
+        ClusterGraph.LegSearch search = (start, targets, area) -> flatService.findPaths(start, targets, wall);
+        ClusterGraph graph = new ClusterGraph(wallIndex, CLUSTER_SIZE, search);
+
+        List<LngLat> waypoints = graph.waypoints(westOfWall, eastOfWall, search);
+
+        assertTrue(graph.entranceCount() > 0);
+        assertNotNull(waypoints);
+        assertFalse(waypoints.isEmpty(), "The leg can't get past the wall without an entrance.");
+        waypoints.forEach(point -> assertFalse(wallIndex.isInAnyZone(point.lng(), point.lat())));
+    }
+
+    @Test
+    @DisplayName("ClusterGraph - Boundary: Searches between entrances are kept inside a cluster round their start")
+    void testEdgeSearchesConfined() {
+        List<SearchArea> areas = new ArrayList<>();
+        ClusterGraph.LegSearch search = (start, targets, area) -> {
+            synchronized (areas) {
+                areas.add(area);
+            }
+            assertTrue(area.contains(start.lng(), start.lat()));
+            assertFalse(area.contains(start.lng() + 2 * CLUSTER_SIZE, start.lat()), "Search spans clusters.");
+            return flatService.findPaths(start, targets, wall);
+        };
+
+        ClusterGraph graph = new ClusterGraph(wallIndex, CLUSTER_SIZE, search);
+
+        assertTrue(areas.size() >= graph.entranceCount());
+    }
+
+    @Test
+    @DisplayName("findPath - Boundary: Short legs are left to flat A* in hierarchical mode")
+    void testShortLegUnchanged() {
+        LngLat start = new LngLat(-3.1885, 55.9445);
+        LngLat goal = new LngLat(-3.1870, 55.9446);
+
+        assertEquals(flatService.findPath(start, goal, wall), hierarchicalService.findPath(start, goal, wall));
+    }
+
+    @Test
+    @DisplayName("waypoints - Negative: Without zones the graph is empty and offers no route")
+    void testNoZones() {
+        ClusterGraph.LegSearch search = (start, targets, area) -> flatService.findPaths(start, targets, List.of());
+        ClusterGraph graph = new ClusterGraph(new ZoneIndex(List.of()), CLUSTER_SIZE, search);
+
+        assertEquals(0, graph.entranceCount());
+        assertNull(graph.waypoints(westOfWall, eastOfWall, search));
+    }
+}
@@ -0,0 +1,96 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.Region;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.geometry.CompiledRegion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Path2D;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledRegionTest {
+
+    // concave "L" shape so the crossing test is exercised on more than a rectangle
+    private List<LngLat> lShape;
+    private CompiledRegion compiled;
+
+    @BeforeEach
+    void setUp() {
+        lShape = List.of(
+                new LngLat(0.0, 0.0), new LngLat(2.0, 0.0),
+                new LngLat(2.0, 1.0), new LngLat(1.0, 1.0),
+                new LngLat(1.0, 2.0), new LngLat(0.0, 2.0),
+                new LngLat(0.0, 0.0)
+        );
+        compiled = CompiledRegion.of(new Region("L", lShape));
+    }
+
+    @Test
+    @DisplayName("contains - Standard: Point in the notch of a concave region is outside")
+    void testConcaveNotch() {
+        assertFalse(compiled.contains(new LngLat(1.5, 1.5)));
+        assertTrue(compiled.contains(new LngLat(0.5, 1.5)));
+    }
+
+    @Test
+    @DisplayName("contains - Boundary: Points on a vertex and on an edge count as inside")
+    void testBoundaryPoints() {
+        assertTrue(compiled.contains(new LngLat(1.0, 1.0)), "Reflex vertex should count as inside.");
+        assertTrue(compiled.contains(new LngLat(1.5, 1.0)), "Point on the notch edge should count as inside.");
+        assertTrue(compiled.contains(new LngLat(0.0, 0.0)), "First vertex should count as inside.");
+    }
+
+    @Test
+    @DisplayName("contains - Standard: Matches Path2D for random interior and exterior points")
+    void testMatchesPath2D() {
+        Path2D.Double polygon = new Path2D.Double();
+        polygon.moveTo(lShape.getFirst().lng(), lShape.getFirst().lat());
+        for (int i = 1; i < lShape.size(); i++) {
+            polygon.lineTo(lShape.get(i).lng(), lShape.get(i).lat());
+        }
+
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            double lng = -0.5 + random.nextDouble() * 3;
+            double lat = -0.5 + random.nextDouble() * 3;
+
+            assertEquals(polygon.contains(lng, lat), compiled.contains(lng, lat), "Mismatch at " + lng + ", " + lat);
+        }
+    }
+
+    @Test
+    @DisplayName("intersectsSegment - Standard: Segment crossing into the notch edge is detected")
+    void testSegmentIntersection() {
+        assertTrue(compiled.intersectsSegment(1.5, 0.5, 1.5, 1.5));
+        assertFalse(compiled.intersectsSegment(1.5, 1.2, 1.8, 1.8), "Segment fully inside the notch does not touch an edge.");
+        assertFalse(compiled.intersectsSegment(5.0, 5.0, 6.0, 6.0), "Segment far outside should be rejected by the bounding box.");
+    }
+
+    @Test
+    @DisplayName("of - Standard: Restricted areas compile the same way as regions")
+    void testCompileRestrictedArea() {
+        CompiledRegion fromArea = CompiledRegion.of(new RestrictedArea("L", 1, null, lShape));
+
+        assertEquals("L", fromArea.name());
+        assertEquals(compiled.edgeCount(), fromArea.edgeCount());
+        // the repeated closing vertex ends the last edge rather than starting one of its own
+        assertEquals(lShape.size() - 1, fromArea.edgeCount());
+        assertEquals(fromArea.vertexLng(0), fromArea.vertexLng(fromArea.edgeCount()));
+        assertEquals(fromArea.vertexLat(0), fromArea.vertexLat(fromArea.edgeCount()));
+        assertTrue(fromArea.contains(0.5, 0.5));
+    }
+
+    @Test
+    @DisplayName("of - Negative: Region that is not closed is rejected")
+    void testOpenRegionRejected() {
+        Region open = new Region("open", lShape.subList(0, lShape.size() - 1));
+
+        assertThrows(IllegalArgumentException.class, () -> CompiledRegion.of(open));
+    }
+}
@@ -0,0 +1,178 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.CostField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CostFieldTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+    private static final double RESOLUTION = MOVE_DISTANCE / 4;
+
+    private CalculationService calculationService;
+    private PathService pathService;
+    private LngLat appletonTower;
+    private List<RestrictedArea> wall;
+    private ZoneIndex wallIndex;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        pathService = new PathService(calculationService);
+        appletonTower = new LngLat(-3.186874, 55.944494);
+
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+        wallIndex = new ZoneIndex(wall);
+    }
+
+    private void assertValidPath(List<LngLat> path, LngLat start, LngLat end, ZoneIndex zones) {
+        assertFalse(path.isEmpty(), "A path should have been found.");
+        assertEquals(start, path.getFirst(), "Path should begin exactly at the start.");
+        assertTrue(calculationService.calculateClose(path.getLast(), end), "Path should end close to the goal.");
+
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(MOVE_DISTANCE, calculationService.calculateDistance(path.get(i - 1), path.get(i)), 1e-12);
+            assertFalse(zones.isMoveInvalid(path.get(i - 1), path.get(i)), "Step " + i + " enters a no-fly zone.");
+        }
+    }
+
+    @Test
+    @DisplayName("path - Standard: Open space path back to the goal takes the minimum number of moves")
+    void testOpenSpacePath() {
+        CostField field = new CostField(appletonTower, new ZoneIndex(List.of()), RESOLUTION, 100_000);
+        LngLat start = new LngLat(appletonTower.lng() + 10.5 * MOVE_DISTANCE, appletonTower.lat());
+
+        List<LngLat> path = field.path(start);
+
+        assertValidPath(path, start, appletonTower, new ZoneIndex(List.of()));
+        assertEquals(10, path.size() - 1);
+    }
+
+    @Test
+    @DisplayName("path - Standard: Path from behind a zone goes around it")
+    void testPathAroundZone() {
+        CostField field = new CostField(appletonTower, wallIndex, RESOLUTION, 500_000);
+        LngLat behindWall = new LngLat(-3.1890, 55.9445);
+
+        List<LngLat> path = field.path(behindWall);
+
+        assertValidPath(path, behindWall, appletonTower, wallIndex);
+        assertTrue(field.moves(behindWall) > 0);
+    }
+
+    @Test
+    @DisplayName("findPathHome - Standard: Return legs are never shorter and at most a few moves longer than A*")
+    void testAgreesWithSearch() {
+        Random random = new Random(7);
+
+        for (int i = 0; i < 40; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double distance = random.nextDouble() * 20 * MOVE_DISTANCE;
+            LngLat start = new LngLat(appletonTower.lng() + distance * Math.cos(angle),
+                    appletonTower.lat() + distance * Math.sin(angle));
+            if (wallIndex.isInAnyZone(start.lng(), start.lat())) {
+                continue;
+            }
+
+            // the odd start right by a corner has no field path and falls back to A*
+            List<LngLat> fieldPath = pathService.findPathHome(start, appletonTower, wall);
+            List<LngLat> searchPath = pathService.findPath(start, appletonTower, wall);
+
+            assertValidPath(fieldPath, start, appletonTower, wallIndex);
+            assertTrue(fieldPath.size() >= searchPath.size() && fieldPath.size() <= searchPath.size() + 4,
+                    "Field path of " + fieldPath.size() + " points against " + searchPath.size() + " from A*.");
+        }
+    }
+
+    @Test
+    @DisplayName("path - Boundary: Start already close to the goal returns just the start")
+    void testStartAlreadyClose() {
+        CostField field = new CostField(appletonTower, wallIndex, RESOLUTION, 100_000);
+        LngLat nearby = new LngLat(appletonTower.lng() + MOVE_DISTANCE / 2, appletonTower.lat());
+
+        assertEquals(List.of(nearby), field.path(nearby));
+        assertEquals(0, field.moves(nearby));
+    }
+
+    @Test
+    @DisplayName("path - Boundary: Field only grows as far as it has been asked to")
+    void testGrowsOnDemand() {
+        CostField field = new CostField(appletonTower, wallIndex, RESOLUTION, 500_000);
+        field.path(new LngLat(appletonTower.lng() + 5 * MOVE_DISTANCE, appletonTower.lat()));
+        int nearSize = field.size();
+
+        field.path(new LngLat(appletonTower.lng() + 5 * MOVE_DISTANCE, appletonTower.lat() + MOVE_DISTANCE));
+        assertEquals(nearSize, field.size(), "A start already covered shouldn't grow the field.");
+
+        field.path(new LngLat(appletonTower.lng() + 15 * MOVE_DISTANCE, appletonTower.lat()));
+        assertTrue(field.size() > nearSize);
+    }
+
+    @Test
+    @DisplayName("growTo - Boundary: Growth gives way to an interrupt and picks up again afterwards")
+    void testInterruptedGrowth() {
+        CostField field = new CostField(appletonTower, wallIndex, RESOLUTION, 500_000);
+        CostField uninterrupted = new CostField(appletonTower, wallIndex, RESOLUTION, 500_000);
+        LngLat behindWall = new LngLat(-3.1890, 55.9445);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> field.growTo(60));
+        } finally {
+            Thread.interrupted();
+        }
+
+        List<LngLat> path = field.path(behindWall);
+        assertValidPath(path, behindWall, appletonTower, wallIndex);
+        assertEquals(uninterrupted.path(behindWall), path);
+    }
+
+    @Test
+    @DisplayName("path - Negative: Start inside a zone gives an empty path once the field is full")
+    void testUnreachableStart() {
+        CostField field = new CostField(appletonTower, wallIndex, RESOLUTION, 20_000);
+        LngLat insideWall = new LngLat(-3.18775, 55.9445);
+
+        assertTrue(field.path(insideWall).isEmpty());
+        assertEquals(CostField.UNKNOWN, field.moves(insideWall));
+    }
+
+    @Test
+    @DisplayName("findPathHome - Standard: Threads racing to build the same field all get the same leg")
+    void testFieldBuiltConcurrently() {
+        LngLat behindWall = new LngLat(-3.1890, 55.9445);
+        List<LngLat> expected = new PathService(calculationService).findPathHome(behindWall, appletonTower, wall);
+
+        List<List<LngLat>> paths = IntStream.range(0, 16).parallel()
+                .mapToObj(i -> pathService.findPathHome(behindWall, appletonTower, wall))
+                .toList();
+
+        paths.forEach(path -> assertEquals(expected, path));
+    }
+
+    @Test
+    @DisplayName("findPathHome - Standard: Return legs come back valid, with or without a field to read")
+    void testFindPathHome() {
+        LngLat behindWall = new LngLat(-3.1890, 55.9445);
+
+        List<LngLat> path = pathService.findPathHome(behindWall, appletonTower, wall);
+
+        assertValidPath(path, behindWall, appletonTower, wallIndex);
+    }
+}
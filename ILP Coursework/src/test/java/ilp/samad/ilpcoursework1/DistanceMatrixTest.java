@@ -0,0 +1,145 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.planning.DistanceMatrix;
+import ilp.samad.ilpcoursework1.service.planning.DistanceMatrixService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistanceMatrixTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+
+    private PathService pathService;
+    private DistanceMatrixService distanceMatrixService;
+    private LngLat appletonTower;
+    private LngLat east;
+    private LngLat north;
+    private List<RestrictedArea> wall;
+
+    @BeforeEach
+    void setUp() {
+        pathService = new PathService(new CalculationService());
+        distanceMatrixService = new DistanceMatrixService(pathService);
+        appletonTower = new LngLat(-3.186874, 55.944494);
+        east = new LngLat(appletonTower.lng() + 10.5 * MOVE_DISTANCE, appletonTower.lat());
+        north = new LngLat(appletonTower.lng(), appletonTower.lat() + 6.5 * MOVE_DISTANCE);
+
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+    }
+
+    @Test
+    @DisplayName("build - Standard: Move counts match a direct findPath for every leg")
+    void testMatchesFindPath() {
+        LngLat behindWall = new LngLat(-3.1890, 55.9445);
+        DistanceMatrix matrix = distanceMatrixService.build(List.of(appletonTower), List.of(east, behindWall), wall);
+
+        for (LngLat from : List.of(appletonTower, east, behindWall)) {
+            for (LngLat to : List.of(east, behindWall)) {
+                if (from.equals(to)) continue;
+                List<LngLat> expected = pathService.findPath(from, to, wall);
+
+                assertEquals(expected.size() - 1, matrix.moves(from, to), "Wrong move count from " + from + " to " + to);
+                assertEquals(expected, matrix.path(from, to));
+            }
+        }
+        assertEquals(10, matrix.moves(appletonTower, east));
+    }
+
+    @Test
+    @DisplayName("build - Boundary: Duplicate points are merged and a point to itself is zero moves")
+    void testDuplicatesAndDiagonal() {
+        DistanceMatrix matrix = distanceMatrixService.build(List.of(appletonTower), List.of(east, east, north), List.of());
+
+        assertEquals(3, matrix.points().size());
+        assertEquals(0, matrix.moves(east, east));
+        assertEquals(List.of(east), matrix.path(east, east));
+    }
+
+    @Test
+    @DisplayName("build - Boundary: Service point to service point legs are not computed")
+    void testServicePointPairsSkipped() {
+        DistanceMatrix matrix = distanceMatrixService.build(List.of(appletonTower, north), List.of(east), List.of());
+
+        assertEquals(DistanceMatrix.NOT_COMPUTED, matrix.moves(appletonTower, north));
+        assertTrue(matrix.isReachable(north, east));
+    }
+
+    @Test
+    @DisplayName("build - Boundary: A delivery right on another service point gets legs out to it and back home")
+    void testDeliveryOnServicePoint() {
+        DistanceMatrix full = distanceMatrixService.build(List.of(appletonTower, north), List.of(north, east), List.of());
+        DistanceMatrix legs = distanceMatrixService.buildServicePointLegs(List.of(appletonTower, north), List.of(north, east), List.of());
+
+        for (DistanceMatrix matrix : List.of(full, legs)) {
+            assertEquals(3, matrix.points().size());
+            assertEquals(pathService.findPath(appletonTower, north, List.of()), matrix.path(appletonTower, north));
+            assertTrue(matrix.isReachable(north, appletonTower));
+            assertTrue(matrix.isReachable(north, east));
+            assertEquals(0, matrix.moves(north, north));
+        }
+    }
+
+    @Test
+    @DisplayName("buildServicePointLegs - Standard: Legs out of and back to a service point match the full matrix")
+    void testServicePointLegsMatchBuild() {
+        LngLat behindWall = new LngLat(-3.1890, 55.9445);
+        DistanceMatrix full = distanceMatrixService.build(List.of(appletonTower), List.of(east, behindWall), wall);
+        DistanceMatrix legs = distanceMatrixService.buildServicePointLegs(List.of(appletonTower), List.of(east, behindWall), wall);
+
+        for (LngLat delivery : List.of(east, behindWall)) {
+            assertEquals(full.moves(appletonTower, delivery), legs.moves(appletonTower, delivery));
+            assertEquals(full.path(appletonTower, delivery), legs.path(appletonTower, delivery));
+            assertEquals(full.moves(delivery, appletonTower), legs.moves(delivery, appletonTower));
+        }
+        assertEquals(0, legs.moves(east, east));
+    }
+
+    @Test
+    @DisplayName("buildServicePointLegs - Boundary: Legs read from many threads at once each load once and agree")
+    void testServicePointLegsReadConcurrently() {
+        LngLat behindWall = new LngLat(-3.1890, 55.9445);
+        List<LngLat> deliveries = List.of(east, north, behindWall);
+        DistanceMatrix full = distanceMatrixService.build(List.of(appletonTower), deliveries, wall);
+        DistanceMatrix legs = distanceMatrixService.buildServicePointLegs(List.of(appletonTower), deliveries, wall);
+
+        // every thread races for the same few cells, out and back
+        List<LngLat> reads = IntStream.range(0, 48).mapToObj(i -> deliveries.get(i % deliveries.size())).toList();
+        reads.parallelStream().forEach(delivery -> {
+            assertEquals(full.path(appletonTower, delivery), legs.path(appletonTower, delivery));
+            assertEquals(full.moves(delivery, appletonTower), legs.moves(delivery, appletonTower));
+        });
+    }
+
+    @Test
+    @DisplayName("buildServicePointLegs - Boundary: Delivery to delivery legs are never computed")
+    void testServicePointLegsSkipDeliveryPairs() {
+        DistanceMatrix legs = distanceMatrixService.buildServicePointLegs(List.of(appletonTower), List.of(east, north), List.of());
+
+        assertEquals(DistanceMatrix.NOT_COMPUTED, legs.moves(east, north));
+        assertEquals(List.of(), legs.path(north, east));
+        assertTrue(legs.isReachable(north, appletonTower));
+    }
+
+    @Test
+    @DisplayName("moves - Negative: Points outside the matrix are reported as not computed")
+    void testUnknownPoint() {
+        DistanceMatrix matrix = distanceMatrixService.build(List.of(appletonTower), List.of(east), List.of());
+
+        assertEquals(DistanceMatrix.NOT_COMPUTED, matrix.moves(appletonTower, north));
+        assertEquals(List.of(), matrix.path(north, east));
+        assertFalse(matrix.contains(north));
+    }
+}
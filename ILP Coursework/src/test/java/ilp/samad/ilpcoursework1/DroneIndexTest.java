@@ -0,0 +1,94 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.drone.Capability;
+import ilp.samad.ilpcoursework1.data.drone.Drone;
+import ilp.samad.ilpcoursework1.data.request.Query;
+import ilp.samad.ilpcoursework1.service.query.DroneIndex;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DroneIndexTest {
+
+    private List<Drone> fleet;
+    private DroneIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // lots of repeated values so equality and range edges are hit often
+        Random random = new Random(11);
+        fleet = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Capability capability = i % 37 == 0 ? null : new Capability(
+                    random.nextBoolean(), random.nextBoolean(),
+                    random.nextInt(10) * 0.5,
+                    1000 + random.nextInt(5) * 250,
+                    i % 50 == 1 ? -0.0 : random.nextInt(4) * 0.01,
+                    random.nextInt(3) + 1.0,
+                    random.nextInt(3) + 0.5);
+            fleet.add(new Drone(String.valueOf(i), i % 10 == 0 ? null : "Drone-" + (i % 7), capability));
+        }
+        index = new DroneIndex(fleet);
+    }
+
+    private List<String> scan(List<Query> queries) {
+        List<DroneQuery.Condition> conditions = DroneQuery.conditions(queries);
+        return fleet.stream()
+                .filter(drone -> conditions.stream().allMatch(condition -> condition.test(drone)))
+                .map(Drone::id)
+                .toList();
+    }
+
+    @Test
+    @DisplayName("ids - Standard: Agrees with a linear scan for single conditions")
+    void testSingleConditions() {
+        List<String> attributes = List.of("id", "name", "capability", "cooling", "heating", "capacity",
+                "maxMoves", "costPerMove", "costInitial", "costFinal");
+        List<String> operators = List.of("=", "!=", "<", ">");
+        List<String> values = List.of("0", "-0.0", "0.0", "1.5", "2.5", "1250", "0.02", "2.0", "NaN",
+                "Infinity", "true", "false", "Drone-3", "null", "", "42");
+
+        for (String attribute : attributes) {
+            for (String operator : operators) {
+                for (String value : values) {
+                    List<Query> queries = List.of(new Query(attribute, operator, value));
+                    assertEquals(scan(queries), index.ids(DroneQuery.conditions(queries)), "Mismatch for " + queries);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("ids - Standard: Agrees with a linear scan for combined conditions")
+    void testCombinedConditions() {
+        List<Query> queries = List.of(
+                new Query("cooling", "=", "true"),
+                new Query("capacity", ">", "2"),
+                new Query("maxMoves", "<", "2000"),
+                new Query("name", "!=", "Drone-2"));
+
+        List<String> expected = scan(queries);
+
+        assertFalse(expected.isEmpty(), "Test data should have some matches.");
+        assertEquals(expected, index.ids(DroneQuery.conditions(queries)));
+    }
+
+    @Test
+    @DisplayName("ids - Boundary: No conditions returns the whole fleet in order")
+    void testNoConditions() {
+        assertEquals(fleet.stream().map(Drone::id).toList(), index.ids(List.of()));
+    }
+
+    @Test
+    @DisplayName("ids - Negative: Unknown attribute matches nothing")
+    void testUnknownAttribute() {
+        assertEquals(List.of(), index.ids(List.of(DroneQuery.condition("colour", "=", "red"))));
+    }
+}
@@ -0,0 +1,122 @@
+package ilp.samad.ilpcoursework1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ilp.samad.ilpcoursework1.data.drone.Capability;
+import ilp.samad.ilpcoursework1.data.drone.Drone;
+import ilp.samad.ilpcoursework1.data.request.Query;
+import ilp.samad.ilpcoursework1.service.query.DroneIndex;
+import ilp.samad.ilpcoursework1.service.query.DroneQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DroneQueryTest {
+
+    private Drone coolingDrone;
+    private Drone heavyDrone;
+    private List<Drone> fleet;
+
+    @BeforeEach
+    void setUp() {
+        coolingDrone = new Drone("1", "Cooler", new Capability(true, false, 4.0, 2000, 0.01, 4.3, 6.5));
+        heavyDrone = new Drone("2", "Lifter", new Capability(false, true, 12.0, 1500, 0.02, 2.0, 1.5));
+        fleet = List.of(
+                coolingDrone, heavyDrone,
+                new Drone("3", null, new Capability(false, false, 8.0, 1000, 0.05, 1.0, 1.0)),
+                new Drone("4", "Broken", null)
+        );
+    }
+
+    // the drones the queries pick out, answered the way DroneService answers them
+    private List<String> matching(List<Query> queries) {
+        return new DroneIndex(fleet).ids(DroneQuery.conditions(queries));
+    }
+
+    // the tree based check DroneQuery replaced, kept here as the reference behaviour
+    private static boolean treeCheck(ObjectMapper objectMapper, Drone drone, Query query) {
+        JsonNode node = objectMapper.valueToTree(drone).findValue(query.attribute());
+        if (node == null || node.isMissingNode()) return false;
+
+        if (node.isNumber()) {
+            try {
+                double nodeValue = node.asDouble();
+                double queryValue = Double.parseDouble(query.value());
+                return switch (query.operator()) {
+                    case "<" -> nodeValue < queryValue;
+                    case ">" -> nodeValue > queryValue;
+                    case "!=" -> nodeValue != queryValue;
+                    case "=" -> nodeValue == queryValue;
+                    default -> false;
+                };
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        } else if (node.isBoolean()) {
+            boolean queryValue = Boolean.parseBoolean(query.value());
+            return switch (query.operator()) {
+                case "=" -> node.asBoolean() == queryValue;
+                case "!=" -> node.asBoolean() != queryValue;
+                default -> false;
+            };
+        }
+        return switch (query.operator()) {
+            case "=" -> node.asText().equals(query.value());
+            case "!=" -> !node.asText().equals(query.value());
+            default -> false;
+        };
+    }
+
+    @Test
+    @DisplayName("conditions - Standard: Agrees with the JSON tree check for every attribute, operator and value")
+    void testMatchesTreeCheck() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> attributes = List.of("id", "name", "capability", "cooling", "heating", "capacity",
+                "maxMoves", "costPerMove", "costInitial", "costFinal", "unknown");
+        List<String> operators = List.of("=", "!=", "<", ">", ">=");
+        List<String> values = List.of("1", "4", "4.0", "12", "2000", "0.02", "true", "false", "TRUE",
+                "Cooler", "null", "", "abc");
+
+        for (String attribute : attributes) {
+            for (String operator : operators) {
+                for (String value : values) {
+                    Query query = new Query(attribute, operator, value);
+                    List<String> expected = fleet.stream()
+                            .filter(drone -> treeCheck(objectMapper, drone, query))
+                            .map(Drone::id)
+                            .toList();
+                    assertEquals(expected, matching(List.of(query)), "Mismatch for " + query);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("conditions - Standard: Multiple queries must all hold")
+    void testQueriesAreCombined() {
+        List<String> ids = matching(List.of(
+                new Query("capacity", ">", "3"),
+                new Query("heating", "=", "true")));
+
+        assertEquals(List.of(heavyDrone.id()), ids);
+    }
+
+    @Test
+    @DisplayName("conditions - Boundary: Empty query list matches every drone")
+    void testEmptyQueries() {
+        assertEquals(fleet.stream().map(Drone::id).toList(), matching(List.of()));
+    }
+
+    @Test
+    @DisplayName("condition - Negative: Unknown attribute or operator never matches")
+    void testInvalidQueries() {
+        assertFalse(DroneQuery.condition("colour", "=", "red").test(coolingDrone));
+        assertFalse(DroneQuery.condition("capacity", "<=", "100").test(coolingDrone));
+        assertFalse(DroneQuery.condition("capacity", "<", "lots").test(coolingDrone));
+        assertEquals(List.of(), matching(List.of(new Query("capacity", "<=", "100"))));
+    }
+}
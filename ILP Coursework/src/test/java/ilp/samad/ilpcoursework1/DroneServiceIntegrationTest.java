@@ -5,7 +5,6 @@ import static org.springframework.test.web.client.match.MockRestRequestMatchers.
 import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
 import static org.junit.jupiter.api.Assertions.*;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import ilp.samad.ilpcoursework1.data.request.Query;
 import ilp.samad.ilpcoursework1.service.DroneService;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,14 +29,11 @@ public class DroneServiceIntegrationTest {
     @Autowired
     private RestTemplateBuilder restTemplateBuilder;
 
-    @Autowired
-    private ObjectMapper objectMapper;
-
     @BeforeEach
     void setUp() {
         RestTemplate restTemplate = restTemplateBuilder.build();
         server = MockRestServiceServer.createServer(restTemplate);
-        droneService = new DroneService("http://test-api/", restTemplate, objectMapper);
+        droneService = new DroneService("http://test-api/", restTemplate);
     }
 
     @Test
@@ -1,15 +1,18 @@
 package ilp.samad.ilpcoursework1;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import ilp.samad.ilpcoursework1.data.drone.*;
 import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
 import ilp.samad.ilpcoursework1.data.request.Query;
 import ilp.samad.ilpcoursework1.service.DroneService;
+import ilp.samad.ilpcoursework1.service.planning.PlanningContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.DayOfWeek;
@@ -20,7 +23,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class DroneServiceTest {
     @Mock
@@ -33,9 +36,8 @@ public class DroneServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        ObjectMapper objectMapper = new ObjectMapper();
         String endpoint = "http://test-url/";
-        droneService = new DroneService(endpoint, restTemplate, objectMapper);
+        droneService = new DroneService(endpoint, restTemplate);
 
         mockServicePoint = new ServicePoint(1, "Appleton Tower", new LngLat(-3.186, 55.944));
     }
@@ -90,6 +92,22 @@ public class DroneServiceTest {
         assertFalse(isAvailable, "Drone should be unavailable if the day of the week does not match its schedule.");
     }
 
+    @Test
+    @DisplayName("isDroneAvailableAtTime - Standard: Checks against the cached availability snapshot")
+    void testAvailableFromSnapshot() {
+        List<Schedule> schedules = List.of(new Schedule(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 0)));
+        ServicePointDrones[] allAvailability = new ServicePointDrones[] {
+                new ServicePointDrones(1, List.of(new DroneAvailability("Drone-01", schedules))) };
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(ServicePointDrones[].class)))
+                .thenReturn(ResponseEntity.ok(allAvailability));
+        LocalDate monday = LocalDate.of(2025, 1, 20);
+
+        assertTrue(droneService.isDroneAvailableAtTime("Drone-01", monday, LocalTime.of(12, 0)));
+        assertFalse(droneService.isDroneAvailableAtTime("Drone-01", monday, LocalTime.of(17, 1)));
+        assertTrue(droneService.isDroneAvailableAtTime("Drone-01", monday, LocalTime.of(9, 0), allAvailability));
+
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), any(), eq(ServicePointDrones[].class));
+    }
 
     // Unit Tests for getDronesByQuery()
 
@@ -99,7 +117,8 @@ public class DroneServiceTest {
         Drone coolingDrone = new Drone("Cool-Drone", "Cooler", new Capability(true, false, 500.0, 2000, 1.0, 10.0, 5.0));
         Drone standardDrone = new Drone("Basic-Drone", "Basic", new Capability(false, false, 500.0, 2000, 1.0, 10.0, 5.0));
         Drone[] fleet = new Drone[] { coolingDrone, standardDrone };
-        when(restTemplate.getForObject(anyString(), eq(Drone[].class))).thenReturn(fleet);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(Drone[].class)))
+                .thenReturn(ResponseEntity.ok(fleet));
 
         List<Query> queries = List.of(new Query("cooling", "=", "true"));
         List<String> result = droneService.getDronesByQuery(queries);
@@ -113,7 +132,8 @@ public class DroneServiceTest {
     void testGetDronesByQueryNoMatch() {
         Drone standardDrone = new Drone("Basic-Drone", "Basic", new Capability(false, false, 500.0, 2000, 1.0, 10.0, 5.0));
         Drone[] fleet = new Drone[] { standardDrone };
-        when(restTemplate.getForObject(anyString(), eq(Drone[].class))).thenReturn(fleet);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(Drone[].class)))
+                .thenReturn(ResponseEntity.ok(fleet));
 
         List<Query> queries = List.of(
                 new Query("cooling", "=", "true")
@@ -124,6 +144,41 @@ public class DroneServiceTest {
         assertTrue(result.isEmpty(), "Should return empty if no drone meets cooling needs.");
     }
 
+    @Test
+    @DisplayName("getDronesByQuery - Standard: Fleet is fetched once and reused by later calls")
+    void testFleetFetchedOnce() {
+        Drone coolingDrone = new Drone("Cool-Drone", "Cooler", new Capability(true, false, 500.0, 2000, 1.0, 10.0, 5.0));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(Drone[].class)))
+                .thenReturn(ResponseEntity.ok(new Drone[] { coolingDrone }));
+
+        droneService.getDronesByQuery(List.of(new Query("cooling", "=", "true")));
+        droneService.getDronesWithCooling(true);
+        Optional<Drone> drone = droneService.getDrone("Cool-Drone");
+
+        assertTrue(drone.isPresent());
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), any(), eq(Drone[].class));
+    }
+
+    // Unit Tests for planningContext()
+    @Test
+    @DisplayName("planningContext - Standard: Reuses one context while the reference data is unchanged")
+    void testPlanningContextReused() {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(Drone[].class)))
+                .thenReturn(ResponseEntity.ok(new Drone[0]));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(ServicePointDrones[].class)))
+                .thenReturn(ResponseEntity.ok(new ServicePointDrones[0]));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(ServicePoint[].class)))
+                .thenReturn(ResponseEntity.ok(new ServicePoint[]{mockServicePoint}));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(RestrictedArea[].class)))
+                .thenReturn(ResponseEntity.ok(new RestrictedArea[0]));
+
+        PlanningContext first = droneService.planningContext();
+        PlanningContext second = droneService.planningContext();
+
+        assertSame(first, second);
+        assertEquals(mockServicePoint, first.servicePoint(1).orElseThrow());
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), any(), eq(ServicePoint[].class));
+    }
 
     // Unit Tests for getServicePointForDrone()
     @Test
@@ -135,12 +190,12 @@ public class DroneServiceTest {
         List<Schedule> schedules = List.of(new Schedule(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 0)));
         DroneAvailability da = new DroneAvailability(droneId, schedules);
         ServicePointDrones spd = new ServicePointDrones(1, List.of(da));
-        when(restTemplate.getForObject(contains("drones-for-service-points"), eq(ServicePointDrones[].class)))
-                .thenReturn(new ServicePointDrones[]{spd});
+        when(restTemplate.exchange(contains("drones-for-service-points"), eq(HttpMethod.GET), any(), eq(ServicePointDrones[].class)))
+                .thenReturn(ResponseEntity.ok(new ServicePointDrones[]{spd}));
 
         // Mocking the service point lookup
-        when(restTemplate.getForObject(contains("service-points"), eq(ServicePoint[].class)))
-                .thenReturn(new ServicePoint[]{mockServicePoint});
+        when(restTemplate.exchange(contains("service-points"), eq(HttpMethod.GET), any(), eq(ServicePoint[].class)))
+                .thenReturn(ResponseEntity.ok(new ServicePoint[]{mockServicePoint}));
 
         Optional<ServicePoint> result = droneService.getServicePointForDrone(droneId);
 
@@ -154,8 +209,8 @@ public class DroneServiceTest {
     @DisplayName("getServicePointById - Standard: Finds existing service point")
     void testGetServicePointByIdSuccess() {
         Integer targetId = 1;
-        when(restTemplate.getForObject(anyString(), eq(ServicePoint[].class)))
-                .thenReturn(new ServicePoint[]{mockServicePoint});
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(ServicePoint[].class)))
+                .thenReturn(ResponseEntity.ok(new ServicePoint[]{mockServicePoint}));
 
         Optional<ServicePoint> result = droneService.getServicePointById(targetId);
 
@@ -167,8 +222,8 @@ public class DroneServiceTest {
     @DisplayName("getServicePointById - Negative: Returns empty Optional for non-existent ID")
     void testGetServicePointByIdNotFound() {
         Integer targetId = 99;
-        when(restTemplate.getForObject(anyString(), eq(ServicePoint[].class)))
-                .thenReturn(new ServicePoint[]{mockServicePoint});
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(ServicePoint[].class)))
+                .thenReturn(ResponseEntity.ok(new ServicePoint[]{mockServicePoint}));
 
         Optional<ServicePoint> result = droneService.getServicePointById(targetId);
 
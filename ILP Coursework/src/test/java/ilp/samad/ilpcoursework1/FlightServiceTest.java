@@ -0,0 +1,149 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.drone.*;
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
+import ilp.samad.ilpcoursework1.data.request.Requirements;
+import ilp.samad.ilpcoursework1.data.response.FlightResponse;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.DroneService;
+import ilp.samad.ilpcoursework1.service.FlightService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.planning.DistanceMatrixService;
+import ilp.samad.ilpcoursework1.service.planning.PlanningContext;
+import ilp.samad.ilpcoursework1.service.planning.PlanningStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+public class FlightServiceTest {
+
+    // 2025-12-01 and 2025-12-08 are Mondays
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 1);
+    private static final LocalDate NEXT_MONDAY = LocalDate.of(2025, 12, 8);
+    private static final double MOVE_DISTANCE = 0.00015;
+
+    @Mock
+    private DroneService droneService;
+
+    private FlightService flightService;
+    private List<MedDispatchRec> orders;
+    private ServicePoint appletonTower;
+    private List<RestrictedArea> wall;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        appletonTower = new ServicePoint(1, "Appleton Tower", new LngLat(-3.186874, 55.944494));
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+        flyWith(new Drone("1", "Lifter", new Capability(true, true, 4.0, 2000, 0.01, 4.3, 6.5)));
+
+        PathService pathService = new PathService(new CalculationService(), new PathCache(PathCache.DEFAULT_MAX_SIZE));
+        flightService = new FlightService(droneService, pathService, new CalculationService(),
+                new DistanceMatrixService(pathService), 0, Duration.ofMillis(50), PlanningStrategy.GREEDY);
+
+        // drop-offs on both sides of the wall, over two dates
+        orders = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            LngLat delivery = new LngLat(-3.1900 + (i % 4) * 12 * MOVE_DISTANCE, 55.9435 + (i / 4) * 5 * MOVE_DISTANCE);
+            orders.add(new MedDispatchRec(i + 1, i % 2 == 0 ? MONDAY : NEXT_MONDAY, LocalTime.of(10, 0),
+                    new Requirements(1.0, false, false, null), delivery));
+        }
+    }
+
+    private void flyWith(Drone drone) {
+        Schedule monday = new Schedule(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 0));
+        when(droneService.planningContext()).thenReturn(new PlanningContext(List.of(drone),
+                List.of(new ServicePointDrones(1, List.of(new DroneAvailability(drone.id(), List.of(monday))))),
+                List.of(appletonTower), wall));
+    }
+
+    private static long delivered(FlightResponse response) {
+        return response.dronePaths().stream()
+                .flatMap(dronePath -> dronePath.deliveries().stream())
+                .filter(delivery -> delivery.deliveryId() != null)
+                .count();
+    }
+
+    @Test
+    @DisplayName("calculateDeliveryPath - Standard: With time to spare every order is delivered, no dearer than without a deadline")
+    void testDeadlineWithTimeToSpare() {
+        FlightResponse plain = flightService.calculateDeliveryPath(orders);
+        FlightResponse withDeadline = flightService.calculateDeliveryPath(orders, Duration.ofSeconds(10));
+
+        assertEquals(orders.size(), delivered(plain));
+        assertEquals(orders.size(), delivered(withDeadline));
+        assertTrue(withDeadline.totalCost() <= plain.totalCost() + 1e-9,
+                withDeadline.totalCost() + " against " + plain.totalCost() + " without a deadline.");
+    }
+
+    @Test
+    @DisplayName("calculateDeliveryPath - Boundary: A deadline too short to finish is kept to within a scheduling margin")
+    void testShortDeadlineReturnsInTime() {
+        Duration deadline = Duration.ofMillis(100);
+        // the first call pays for loading classes before the deadline starts counting
+        flightService.calculateDeliveryPath(orders, deadline);
+
+        long startTime = System.nanoTime();
+        FlightResponse response = flightService.calculateDeliveryPath(orders, deadline);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startTime);
+
+        assertTrue(elapsed.compareTo(deadline.plusMillis(100)) < 0, "Took " + elapsed + " for a " + deadline + " deadline.");
+        // whatever was planned by then is whole, with no order flown twice
+        List<Integer> deliveredIds = response.dronePaths().stream()
+                .flatMap(dronePath -> dronePath.deliveries().stream())
+                .map(delivery -> delivery.deliveryId())
+                .filter(id -> id != null)
+                .toList();
+        assertEquals(deliveredIds.stream().distinct().count(), deliveredIds.size());
+        assertEquals(deliveredIds.isEmpty(), response.totalMoves() == 0);
+    }
+
+    @Test
+    @DisplayName("calculateDeliveryPath - Boundary: Every flight, the way home actually flown included, fits the battery")
+    void testFlightsFitBattery() {
+        // batteries from a little over one round trip to a few
+        for (int maxMoves = 60; maxMoves <= 120; maxMoves += 5) {
+            int battery = maxMoves;
+            flyWith(new Drone("1", "Lifter", new Capability(true, true, 4.0, battery, 0.01, 4.3, 6.5)));
+
+            FlightResponse response = flightService.calculateDeliveryPath(orders);
+
+            assertTrue(delivered(response) > 0);
+            response.dronePaths().forEach(dronePath -> {
+                List<LngLat> home = dronePath.deliveries().getLast().flightPath();
+                int moves = dronePath.deliveries().stream().mapToInt(delivery -> delivery.flightPath().size() - 1).sum();
+
+                assertNull(dronePath.deliveries().getLast().deliveryId(), "Every flight should end with its way home.");
+                assertTrue(new CalculationService().calculateClose(home.getLast(), appletonTower.location()));
+                assertTrue(moves <= battery, "Flight of " + moves + " moves on a battery of " + battery + ".");
+            });
+        }
+    }
+
+    @Test
+    @DisplayName("calculateDeliveryPath - Negative: A deadline that isn't positive is rejected")
+    void testNonPositiveDeadline() {
+        assertThrows(IllegalArgumentException.class, () -> flightService.calculateDeliveryPath(orders, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> flightService.calculateDeliveryPath(orders, Duration.ofMillis(-1)));
+    }
+}
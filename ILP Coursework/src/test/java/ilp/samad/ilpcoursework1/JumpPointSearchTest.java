@@ -0,0 +1,103 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.JumpPointSearch;
+import ilp.samad.ilpcoursework1.service.path.PathfindingMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JumpPointSearchTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+
+    private CalculationService calculationService;
+    private PathService flatService;
+    private PathService jumpPointService;
+    private List<RestrictedArea> wall;
+    private ZoneIndex wallIndex;
+    private LngLat westOfWall;
+    private LngLat eastOfWall;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        flatService = new PathService(calculationService, new PathCache(0), PathfindingMode.FLAT);
+        jumpPointService = new PathService(calculationService, new PathCache(0), PathfindingMode.JUMP_POINT);
+
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+        wallIndex = new ZoneIndex(wall);
+        westOfWall = new LngLat(-3.1910, 55.9446);
+        eastOfWall = new LngLat(-3.1840, 55.9441);
+    }
+
+    private void assertValidPath(List<LngLat> path, LngLat start, LngLat end) {
+        assertFalse(path.isEmpty(), "A path should have been found.");
+        assertEquals(start, path.getFirst(), "Path should begin exactly at the start.");
+        assertTrue(calculationService.calculateClose(path.getLast(), end), "Path should end close to the goal.");
+
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(MOVE_DISTANCE, calculationService.calculateDistance(path.get(i - 1), path.get(i)), 1e-12);
+            assertFalse(wallIndex.isMoveInvalid(path.get(i - 1), path.get(i)), "Step " + i + " enters a no-fly zone.");
+        }
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Jump point path round a zone takes as many moves as flat A*")
+    void testSameMovesAsFlat() {
+        List<LngLat> flat = flatService.findPath(westOfWall, eastOfWall, wall);
+        List<LngLat> jumpPoint = jumpPointService.findPath(westOfWall, eastOfWall, wall);
+
+        assertValidPath(jumpPoint, westOfWall, eastOfWall);
+        assertEquals(flat.size(), jumpPoint.size());
+    }
+
+    @Test
+    @DisplayName("findPaths - Standard: Every target of a shared search matches flat A*")
+    void testSeveralTargets() {
+        List<LngLat> targets = List.of(eastOfWall, new LngLat(-3.1860, 55.9470), new LngLat(-3.1865, 55.9420));
+
+        Map<LngLat, List<LngLat>> flat = flatService.findPaths(westOfWall, targets, wall);
+        Map<LngLat, List<LngLat>> jumpPoint = jumpPointService.findPaths(westOfWall, targets, wall);
+
+        for (LngLat target : targets) {
+            assertValidPath(jumpPoint.get(target), westOfWall, target);
+            assertEquals(flat.get(target).size(), jumpPoint.get(target).size());
+        }
+    }
+
+    @Test
+    @DisplayName("search - Boundary: A target just over a move from the start is reached in one or two moves")
+    void testTargetNextToStart() {
+        LngLat start = new LngLat(-3.1910, 55.9446);
+        LngLat target = new LngLat(start.lng() + 1.5 * MOVE_DISTANCE, start.lat());
+
+        List<LngLat> path = JumpPointSearch.search(start, List.of(target), wallIndex, 1000).get(target);
+
+        assertValidPath(path, start, target);
+        assertTrue(path.size() <= 3);
+    }
+
+    @Test
+    @DisplayName("search - Negative: A target inside a zone is left out once the search gives up")
+    void testUnreachableTarget() {
+        LngLat insideWall = new LngLat(-3.18775, 55.9445);
+
+        Map<LngLat, List<LngLat>> paths = JumpPointSearch.search(westOfWall, List.of(insideWall), wallIndex, 5000);
+
+        assertFalse(paths.containsKey(insideWall));
+    }
+}
@@ -0,0 +1,130 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.Landmarks;
+import ilp.samad.ilpcoursework1.service.path.PathfindingMode;
+import ilp.samad.ilpcoursework1.service.path.SearchHeuristic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LandmarksTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+
+    private CalculationService calculationService;
+    private PathService euclideanService;
+    private PathService landmarkService;
+    private List<RestrictedArea> wall;
+    private ZoneIndex wallIndex;
+    private LngLat westOfWall;
+    private LngLat eastOfWall;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        euclideanService = new PathService(calculationService, new PathCache(0), PathfindingMode.FLAT,
+                SearchHeuristic.EUCLIDEAN);
+        landmarkService = new PathService(calculationService, new PathCache(0), PathfindingMode.FLAT,
+                SearchHeuristic.LANDMARKS);
+
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+        wallIndex = new ZoneIndex(wall);
+        westOfWall = new LngLat(-3.1900, 55.9446);
+        eastOfWall = new LngLat(-3.1855, 55.9441);
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Landmark heuristic finds a path round a zone as short as straight-line A*")
+    void testSameLengthAsEuclidean() {
+        List<LngLat> euclidean = euclideanService.findPath(westOfWall, eastOfWall, wall);
+        List<LngLat> landmarks = landmarkService.findPath(westOfWall, eastOfWall, wall);
+
+        assertFalse(landmarks.isEmpty(), "A path should have been found.");
+        assertEquals(westOfWall, landmarks.getFirst());
+        assertTrue(calculationService.calculateClose(landmarks.getLast(), eastOfWall));
+        for (int i = 1; i < landmarks.size(); i++) {
+            assertFalse(wallIndex.isMoveInvalid(landmarks.get(i - 1), landmarks.get(i)), "Step " + i + " enters a no-fly zone.");
+        }
+        assertEquals(euclidean.size(), landmarks.size());
+    }
+
+    @Test
+    @DisplayName("towards - Standard: The bound never promises fewer moves than the path really takes")
+    void testBoundIsLowerBound() {
+        Landmarks landmarks = new Landmarks(wallIndex);
+        Landmarks.Bound bound = landmarks.towards(westOfWall, eastOfWall);
+        assertNotNull(bound);
+
+        List<LngLat> path = euclideanService.findPath(westOfWall, eastOfWall, wall);
+        for (int i = 0; i < path.size(); i++) {
+            LngLat point = path.get(i);
+            int movesLeft = path.size() - 1 - i;
+            assertTrue(bound.moves(point.lng(), point.lat()) <= movesLeft,
+                    "Bound of " + bound.moves(point.lng(), point.lat()) + " at step " + i + " but only " + movesLeft + " left.");
+        }
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Random legs round a zone come out as short with landmarks as with straight-line A*")
+    void testRandomLegsAgainstEuclidean() {
+        Landmarks landmarks = new Landmarks(wallIndex);
+        Random random = new Random(11);
+
+        for (int leg = 0; leg < 12; leg++) {
+            LngLat start = nearWall(random);
+            LngLat goal = nearWall(random);
+            List<LngLat> euclidean = euclideanService.findPath(start, goal, wall);
+            List<LngLat> alt = landmarkService.findPath(start, goal, wall);
+
+            assertEquals(euclidean.size(), alt.size(), "Leg from " + start + " to " + goal);
+            Landmarks.Bound bound = landmarks.towards(start, goal);
+            for (int i = 0; bound != null && i < euclidean.size(); i++) {
+                LngLat point = euclidean.get(i);
+                assertTrue(bound.moves(point.lng(), point.lat()) <= euclidean.size() - 1 - i,
+                        "Bound overshoots at step " + i + " of the leg from " + start + " to " + goal);
+            }
+        }
+    }
+
+    // anywhere up to 20 moves round the wall, outside it
+    private LngLat nearWall(Random random) {
+        LngLat point;
+        do {
+            point = new LngLat(-3.18775 + (random.nextDouble() * 2 - 1) * 20 * MOVE_DISTANCE,
+                    55.9445 + (random.nextDouble() * 2 - 1) * 20 * MOVE_DISTANCE);
+        } while (wallIndex.isInAnyZone(point.lng(), point.lat()));
+        return point;
+    }
+
+    @Test
+    @DisplayName("towards - Boundary: A goal far beyond the zones gets no bound")
+    void testGoalOffGrid() {
+        Landmarks landmarks = new Landmarks(wallIndex);
+        LngLat farAway = new LngLat(westOfWall.lng() - 500 * MOVE_DISTANCE, westOfWall.lat());
+
+        assertNull(landmarks.towards(westOfWall, farAway));
+    }
+
+    @Test
+    @DisplayName("towards - Negative: Without zones there are no landmarks and no bound")
+    void testNoZones() {
+        Landmarks landmarks = new Landmarks(new ZoneIndex(List.of()));
+
+        assertTrue(landmarks.positions().isEmpty());
+        assertNull(landmarks.towards(westOfWall, eastOfWall));
+    }
+}
@@ -0,0 +1,102 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.path.Lattice;
+import ilp.samad.ilpcoursework1.service.path.LongIntMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatticeTest {
+
+    private CalculationService calculationService;
+    private LngLat origin;
+    private Lattice lattice;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        origin = new LngLat(-3.186874, 55.944494);
+        lattice = new Lattice(origin);
+    }
+
+    // Unit Tests for Lattice.key()
+    @Test
+    @DisplayName("key - Standard: Same moves taken in a different order map to the same key")
+    void testMoveOrderDoesNotChangeKey() {
+        LngLat eastThenNorth = calculationService.calculateNextPosition(
+                calculationService.calculateNextPosition(origin, 0), 90);
+        LngLat northThenEast = calculationService.calculateNextPosition(
+                calculationService.calculateNextPosition(origin, 90), 0);
+
+        assertEquals(lattice.key(eastThenNorth), lattice.key(northThenEast),
+                "Floating point drift between equivalent routes should not create a second node.");
+    }
+
+    @Test
+    @DisplayName("key - Standard: Every one of the 16 neighbours gets a distinct key")
+    void testNeighboursHaveDistinctKeys() {
+        LongIntMap seen = new LongIntMap();
+        for (int direction = 0; direction < 16; direction++) {
+            seen.put(lattice.key(calculationService.calculateNextPosition(origin, direction * 22.5)), direction);
+        }
+
+        assertEquals(16, seen.size());
+    }
+
+    @Test
+    @DisplayName("key - Boundary: Origin packs to zero and unpacks to the same offsets")
+    void testPackRoundTrip() {
+        assertEquals(0L, lattice.key(origin));
+
+        long key = Lattice.pack(-12345, 678);
+        assertEquals(-12345, Lattice.x(key));
+        assertEquals(678, Lattice.y(key));
+    }
+
+    @Test
+    @DisplayName("key - Negative: Position outside the packable range is rejected")
+    void testPositionTooFarFromOrigin() {
+        assertThrows(IllegalArgumentException.class, () -> lattice.key(new LngLat(10.0, 55.944494)));
+    }
+
+
+    // Unit Tests for LongIntMap
+    @Test
+    @DisplayName("LongIntMap - Standard: Values survive the table growing")
+    void testMapGrowth() {
+        LongIntMap map = new LongIntMap(4);
+        for (int i = 0; i < 10_000; i++) {
+            map.put(Lattice.pack(i, -i), i * 2);
+        }
+
+        assertEquals(10_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i * 2, map.get(Lattice.pack(i, -i), -1));
+        }
+    }
+
+    @Test
+    @DisplayName("LongIntMap - Boundary: Overwriting a key does not change the size")
+    void testMapOverwrite() {
+        LongIntMap map = new LongIntMap();
+        map.put(42L, 1);
+        map.put(42L, 2);
+
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(42L, -1));
+    }
+
+    @Test
+    @DisplayName("LongIntMap - Negative: Missing key returns the default value")
+    void testMapMissingKey() {
+        LongIntMap map = new LongIntMap();
+        map.put(1L, 1);
+
+        assertFalse(map.containsKey(2L));
+        assertEquals(Integer.MAX_VALUE, map.get(2L, Integer.MAX_VALUE));
+    }
+}
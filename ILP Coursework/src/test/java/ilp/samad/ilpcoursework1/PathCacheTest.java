@@ -0,0 +1,153 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.PathfindingMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathCacheTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+
+    private PathCache pathCache;
+    private PathService pathService;
+    private LngLat appletonTower;
+    private LngLat goal;
+    private List<RestrictedArea> wall;
+
+    @BeforeEach
+    void setUp() {
+        pathCache = new PathCache(2);
+        pathService = new PathService(new CalculationService(), pathCache);
+        appletonTower = new LngLat(-3.186874, 55.944494);
+        goal = new LngLat(appletonTower.lng() + 10.5 * MOVE_DISTANCE, appletonTower.lat());
+
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Repeating a search is answered from the cache")
+    void testRepeatedSearchHits() {
+        List<LngLat> first = pathService.findPath(appletonTower, goal, wall);
+        List<LngLat> second = pathService.findPath(appletonTower, goal, wall);
+
+        assertEquals(first, second);
+        assertEquals(1, pathCache.misses());
+        assertEquals(1, pathCache.hits());
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: A changed zone set is never served an old path")
+    void testZoneChangeInvalidates() {
+        pathService.findPath(appletonTower, goal, wall);
+        pathService.findPath(appletonTower, goal, List.of());
+
+        assertEquals(2, pathCache.misses());
+        assertEquals(0, pathCache.hits());
+        assertEquals(1, pathCache.size(), "Paths for the old zone set should have been dropped.");
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Flat A* is never served a path another mode cached for the leg")
+    void testModesCachedApart() {
+        LngLat westOfWall = new LngLat(-3.1910, 55.9446);
+        LngLat eastOfWall = new LngLat(-3.1840, 55.9441);
+        List<LngLat> expected = new PathService(new CalculationService(), new PathCache(0))
+                .findPath(westOfWall, eastOfWall, wall, PathfindingMode.FLAT);
+
+        List<LngLat> hierarchical = pathService.findPath(westOfWall, eastOfWall, wall, PathfindingMode.HIERARCHICAL);
+        List<LngLat> flat = pathService.findPath(westOfWall, eastOfWall, wall, PathfindingMode.FLAT);
+
+        assertEquals(expected.size(), flat.size());
+        assertEquals(2, pathCache.misses());
+        assertEquals(hierarchical, pathService.findPath(westOfWall, eastOfWall, wall, PathfindingMode.HIERARCHICAL));
+        assertEquals(1, pathCache.hits());
+    }
+
+    @Test
+    @DisplayName("findPath - Boundary: Start a fraction of a nanodegree away reuses the path shifted onto it")
+    void testSnappedStartIsShifted() {
+        pathService.findPath(appletonTower, goal, wall);
+        LngLat nudged = new LngLat(appletonTower.lng() + 1e-11, appletonTower.lat());
+
+        List<LngLat> path = pathService.findPath(nudged, goal, wall);
+
+        assertEquals(1, pathCache.hits());
+        assertEquals(nudged, path.getFirst());
+        assertEquals(MOVE_DISTANCE, new CalculationService().calculateDistance(path.get(0), path.get(1)), 1e-12);
+    }
+
+    @Test
+    @DisplayName("findPath - Negative: A goal walled in on every side is cached as unreachable once searched out")
+    void testWalledInGoalCached() {
+        // four walls round an open yard, with the goal in the middle of it
+        List<RestrictedArea> yard = List.of(
+                rectangle(-3.1900, 55.9420, -3.1850, 55.9425),
+                rectangle(-3.1900, 55.9455, -3.1850, 55.9460),
+                rectangle(-3.1900, 55.9420, -3.1895, 55.9460),
+                rectangle(-3.1855, 55.9420, -3.1850, 55.9460));
+        LngLat inYard = new LngLat(-3.1875, 55.9440);
+        LngLat outside = new LngLat(-3.1875, 55.9470);
+
+        assertTrue(pathService.findPath(outside, inYard, yard).isEmpty());
+        assertTrue(pathService.findPath(outside, inYard, yard).isEmpty());
+
+        assertEquals(1, pathCache.misses());
+        assertEquals(1, pathCache.hits());
+    }
+
+    private static RestrictedArea rectangle(double minLng, double minLat, double maxLng, double maxLat) {
+        return new RestrictedArea("yard", 1, null, List.of(
+                new LngLat(minLng, minLat), new LngLat(maxLng, minLat),
+                new LngLat(maxLng, maxLat), new LngLat(minLng, maxLat),
+                new LngLat(minLng, minLat)));
+    }
+
+    @Test
+    @DisplayName("put - Boundary: Least recently used entry is evicted once full")
+    void testLruEviction() {
+        long zones = ZoneIndex.fingerprint(wall);
+        LngLat a = new LngLat(1.0, 1.0), b = new LngLat(2.0, 2.0), c = new LngLat(3.0, 3.0);
+
+        pathCache.put(a, goal, zones, PathfindingMode.FLAT, List.of(a));
+        pathCache.put(b, goal, zones, PathfindingMode.FLAT, List.of(b));
+        pathCache.get(a, goal, zones, PathfindingMode.FLAT);
+        pathCache.put(c, goal, zones, PathfindingMode.FLAT, List.of(c));
+
+        assertNotNull(pathCache.get(a, goal, zones, PathfindingMode.FLAT), "Recently used entry should survive.");
+        assertNull(pathCache.get(b, goal, zones, PathfindingMode.FLAT), "Least recently used entry should be evicted.");
+        assertEquals(2, pathCache.size());
+    }
+
+    @Test
+    @DisplayName("fingerprint - Standard: Equal zone lists match and a moved vertex does not")
+    void testFingerprint() {
+        List<RestrictedArea> copy = List.of(new RestrictedArea("wall", 1, null, List.copyOf(wall.getFirst().vertices())));
+        List<RestrictedArea> moved = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1874, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+
+        assertEquals(ZoneIndex.fingerprint(wall), ZoneIndex.fingerprint(copy));
+        assertNotEquals(ZoneIndex.fingerprint(wall), ZoneIndex.fingerprint(moved));
+    }
+
+    @Test
+    @DisplayName("PathCache - Negative: Negative size is rejected")
+    void testNegativeSize() {
+        assertThrows(IllegalArgumentException.class, () -> new PathCache(-1));
+    }
+}
@@ -0,0 +1,233 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.NodeHeap;
+import ilp.samad.ilpcoursework1.service.path.SearchNodes;
+import ilp.samad.ilpcoursework1.service.path.StraightPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// end to end tests for PathService.findPath using the real CalculationService
+public class PathFindingTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+
+    private CalculationService calculationService;
+    private PathService pathService;
+    private LngLat appletonTower;
+    private List<RestrictedArea> wall;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        pathService = new PathService(calculationService);
+        appletonTower = new LngLat(-3.186874, 55.944494);
+
+        // a long thin zone directly west of the start
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+    }
+
+    // every step must be exactly one move in one of the 16 directions and never enter a zone
+    private void assertValidPath(List<LngLat> path, LngLat start, LngLat end, List<RestrictedArea> zones) {
+        assertFalse(path.isEmpty(), "A path should have been found.");
+        assertEquals(start, path.getFirst(), "Path should begin exactly at the start.");
+        assertTrue(calculationService.calculateClose(path.getLast(), end), "Path should end close to the goal.");
+
+        ZoneIndex zoneIndex = new ZoneIndex(zones);
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(MOVE_DISTANCE, calculationService.calculateDistance(path.get(i - 1), path.get(i)), 1e-12);
+            assertFalse(zoneIndex.isMoveInvalid(path.get(i - 1), path.get(i)), "Step " + i + " enters a no-fly zone.");
+        }
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Open space path takes the minimum number of moves")
+    void testOpenSpacePath() {
+        LngLat goal = new LngLat(appletonTower.lng() + 10.5 * MOVE_DISTANCE, appletonTower.lat());
+
+        List<LngLat> path = pathService.findPath(appletonTower, goal, List.of());
+
+        assertValidPath(path, appletonTower, goal, List.of());
+        assertEquals(10, path.size() - 1, "Straight east should take exactly ten moves.");
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Path goes around a zone between start and goal")
+    void testPathAvoidsZone() {
+        LngLat goal = new LngLat(-3.1890, 55.9445);
+
+        List<LngLat> path = pathService.findPath(appletonTower, goal, wall);
+
+        assertValidPath(path, appletonTower, goal, wall);
+    }
+
+    @Test
+    @DisplayName("findPath - Boundary: Start already close to the goal returns just the start")
+    void testStartAlreadyClose() {
+        LngLat goal = new LngLat(appletonTower.lng() + 0.0001, appletonTower.lat());
+
+        List<LngLat> path = pathService.findPath(appletonTower, goal, wall);
+
+        assertEquals(List.of(appletonTower), path);
+    }
+
+    @Test
+    @DisplayName("findPath - Negative: Goal inside a zone gives up with an empty path")
+    void testUnreachableGoal() {
+        LngLat insideWall = new LngLat(-3.18775, 55.9445);
+
+        List<LngLat> path = pathService.findPath(appletonTower, insideWall, wall);
+
+        assertTrue(path.isEmpty());
+    }
+
+    @Test
+    @DisplayName("findPath - Negative: Interrupted search is cancelled and nothing is cached")
+    void testCancelledSearch() {
+        PathCache cache = new PathCache(PathCache.DEFAULT_MAX_SIZE);
+        PathService cachingService = new PathService(calculationService, cache);
+        // a goal buried in the wall is turned down without a search, so this one is behind it
+        LngLat behindWall = new LngLat(-3.1895, 55.9445);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> cachingService.findPath(appletonTower, behindWall, wall));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("StraightPath - Standard: Unobstructed legs in any direction come back valid without a search")
+    void testStraightPathOpenSpace() {
+        ZoneIndex noZones = new ZoneIndex(List.of());
+        Random random = new Random(11);
+
+        for (int i = 0; i < 40; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double distance = random.nextDouble() * 40 * MOVE_DISTANCE;
+            LngLat goal = new LngLat(appletonTower.lng() + distance * Math.cos(angle),
+                    appletonTower.lat() + distance * Math.sin(angle));
+
+            List<LngLat> path = StraightPath.between(appletonTower, goal, noZones);
+
+            assertValidPath(path, appletonTower, goal, List.of());
+            // never stops short, and never worse than the move furthest off the line every time
+            assertTrue(path.size() - 1 >= Math.ceil(distance / MOVE_DISTANCE - 1));
+            assertTrue(path.size() - 1 <= Math.ceil(distance / (MOVE_DISTANCE * Math.cos(Math.toRadians(11.25)))));
+        }
+    }
+
+    @Test
+    @DisplayName("StraightPath - Negative: A zone across or just beside the line leaves the leg to A*")
+    void testStraightPathNearZone() {
+        ZoneIndex wallIndex = new ZoneIndex(wall);
+        LngLat behindWall = new LngLat(-3.1890, 55.9445);
+        // runs alongside the wall's east edge, half a move away from it
+        LngLat alongsideStart = new LngLat(-3.1875 + MOVE_DISTANCE / 2, 55.9425);
+        LngLat alongsideEnd = new LngLat(-3.1875 + MOVE_DISTANCE / 2, 55.9465);
+
+        assertTrue(StraightPath.between(appletonTower, behindWall, wallIndex).isEmpty());
+        assertTrue(StraightPath.between(alongsideStart, alongsideEnd, wallIndex).isEmpty());
+        assertValidPath(pathService.findPath(alongsideStart, alongsideEnd, wall), alongsideStart, alongsideEnd, wall);
+    }
+
+    @Test
+    @DisplayName("findPaths - Standard: One search gives every target the same move count as its own search")
+    void testMultiTargetMatchesSingle() {
+        List<LngLat> targets = List.of(
+                new LngLat(appletonTower.lng() + 10.5 * MOVE_DISTANCE, appletonTower.lat()),
+                new LngLat(appletonTower.lng(), appletonTower.lat() + 6.5 * MOVE_DISTANCE),
+                new LngLat(-3.1890, 55.9445));
+
+        Map<LngLat, List<LngLat>> paths = pathService.findPaths(appletonTower, targets, wall);
+
+        assertEquals(targets, List.copyOf(paths.keySet()), "Paths should come back in target order.");
+        PathService singleSearches = new PathService(calculationService);
+        for (LngLat target : targets) {
+            assertValidPath(paths.get(target), appletonTower, target, wall);
+            assertEquals(singleSearches.findPath(appletonTower, target, wall).size(), paths.get(target).size());
+        }
+    }
+
+    @Test
+    @DisplayName("findPaths - Boundary: Targets already close or repeated still get one path each")
+    void testMultiTargetCloseAndRepeated() {
+        LngLat nearby = new LngLat(appletonTower.lng() + MOVE_DISTANCE / 2, appletonTower.lat());
+        LngLat east = new LngLat(appletonTower.lng() + 4.5 * MOVE_DISTANCE, appletonTower.lat());
+
+        Map<LngLat, List<LngLat>> paths = pathService.findPaths(appletonTower, List.of(nearby, east, east), List.of());
+
+        assertEquals(2, paths.size());
+        assertEquals(List.of(appletonTower), paths.get(nearby));
+        assertEquals(4, paths.get(east).size() - 1);
+    }
+
+    @Test
+    @DisplayName("findPaths - Negative: An unreachable target gets an empty path without losing the others")
+    void testMultiTargetUnreachable() {
+        LngLat insideWall = new LngLat(-3.18775, 55.9445);
+        LngLat east = new LngLat(appletonTower.lng() + 4.5 * MOVE_DISTANCE, appletonTower.lat());
+
+        Map<LngLat, List<LngLat>> paths = pathService.findPaths(appletonTower, List.of(insideWall, east), wall);
+
+        assertTrue(paths.get(insideWall).isEmpty());
+        assertValidPath(paths.get(east), appletonTower, east, wall);
+    }
+
+    // Unit Tests for NodeHeap
+    @Test
+    @DisplayName("NodeHeap - Standard: Decrease-key moves an existing entry instead of duplicating it")
+    void testDecreaseKey() {
+        SearchNodes nodes = new SearchNodes(appletonTower);
+        NodeHeap heap = new NodeHeap(nodes);
+
+        for (int i = 0; i < 5; i++) {
+            int id = nodes.add(i, i, i);
+            nodes.update(id, 0, 10 - i, SearchNodes.NONE);
+            heap.push(id);
+        }
+
+        // node 0 started with the worst f-score, improve it to the best
+        nodes.update(0, 0, 1, SearchNodes.NONE);
+        heap.push(0);
+
+        assertEquals(5, heap.size(), "Improving a queued node must not add a second entry.");
+        assertEquals(0, heap.pop());
+        assertEquals(4, heap.pop());
+        assertEquals(3, heap.pop());
+    }
+
+    @Test
+    @DisplayName("NodeHeap - Boundary: Equal f-scores prefer the node with the larger g-score")
+    void testTieBreak() {
+        SearchNodes nodes = new SearchNodes(appletonTower);
+        NodeHeap heap = new NodeHeap(nodes);
+
+        int shallow = nodes.add(1, 0, 0);
+        nodes.update(shallow, 1, 5, SearchNodes.NONE);
+        int deep = nodes.add(2, 0, 0);
+        nodes.update(deep, 4, 5, SearchNodes.NONE);
+        heap.push(shallow);
+        heap.push(deep);
+
+        assertEquals(deep, heap.pop());
+    }
+}
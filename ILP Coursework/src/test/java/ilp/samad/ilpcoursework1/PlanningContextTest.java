@@ -0,0 +1,93 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.drone.*;
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
+import ilp.samad.ilpcoursework1.data.request.Requirements;
+import ilp.samad.ilpcoursework1.service.planning.PlanningContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlanningContextTest {
+
+    // 2025-12-01 is a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 1);
+
+    private ServicePoint appletonTower;
+    private ServicePoint ocean;
+    private PlanningContext context;
+
+    @BeforeEach
+    void setUp() {
+        appletonTower = new ServicePoint(1, "Appleton Tower", new LngLat(-3.186874, 55.944494));
+        ocean = new ServicePoint(2, "Ocean Terminal", new LngLat(-3.17732, 55.98177));
+
+        Drone cooler = new Drone("1", "Cooler", new Capability(true, false, 4.0, 2000, 0.01, 4.3, 6.5));
+        Drone lifter = new Drone("2", "Lifter", new Capability(false, true, 12.0, 1500, 0.02, 2.0, 1.5));
+        Drone orphan = new Drone("3", "Orphan", new Capability(true, true, 8.0, 1000, 0.05, 1.0, 1.0));
+
+        Schedule mondayMorning = new Schedule(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(12, 0));
+        Schedule mondayAfternoon = new Schedule(DayOfWeek.MONDAY, LocalTime.of(13, 0), LocalTime.of(17, 0));
+
+        List<ServicePointDrones> availability = List.of(
+                new ServicePointDrones(1, List.of(new DroneAvailability("1", List.of(mondayMorning)))),
+                new ServicePointDrones(2, List.of(
+                        new DroneAvailability("1", List.of(mondayAfternoon)),
+                        new DroneAvailability("2", List.of(mondayMorning)))),
+                // listed under a service point that doesn't exist
+                new ServicePointDrones(99, List.of(new DroneAvailability("3", List.of(mondayMorning)))));
+
+        context = new PlanningContext(List.of(cooler, lifter, orphan), availability,
+                List.of(appletonTower, ocean), List.of());
+    }
+
+    private MedDispatchRec order(double capacity, Boolean cooling, LocalTime time) {
+        return new MedDispatchRec(1, MONDAY, time, new Requirements(capacity, cooling, null, null),
+                new LngLat(-3.19, 55.945));
+    }
+
+    @Test
+    @DisplayName("servicePointFor - Standard: Home is the first service point listing the drone")
+    void testServicePointFor() {
+        assertEquals(appletonTower, context.servicePointFor("1").orElseThrow());
+        assertEquals(ocean, context.servicePointFor("2").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("servicePointFor - Negative: Unknown drone or missing service point gives empty")
+    void testServicePointForMissing() {
+        assertTrue(context.servicePointFor("3").isEmpty());
+        assertTrue(context.servicePointFor("404").isEmpty());
+    }
+
+    @Test
+    @DisplayName("availableDrones - Standard: Schedules from every service point are considered")
+    void testAvailabilityAcrossServicePoints() {
+        assertEquals(List.of("1", "3"), context.availableDrones(List.of(order(2.0, true, LocalTime.of(10, 0)))));
+        assertEquals(List.of("1"), context.availableDrones(List.of(order(2.0, true, LocalTime.of(14, 0)))));
+    }
+
+    @Test
+    @DisplayName("availableDrones - Boundary: Shift end is inclusive and the gap between shifts is not")
+    void testShiftBoundaries() {
+        assertTrue(context.isDroneAvailableAtTime("1", MONDAY, LocalTime.of(12, 0)));
+        assertFalse(context.isDroneAvailableAtTime("1", MONDAY, LocalTime.of(12, 30)));
+        assertFalse(context.isDroneAvailableAtTime("1", MONDAY.plusDays(1), LocalTime.of(10, 0)));
+    }
+
+    @Test
+    @DisplayName("availableDrones - Negative: No drone can take every order in the list")
+    void testNoDroneForAllOrders() {
+        List<MedDispatchRec> orders = List.of(order(10.0, null, LocalTime.of(10, 0)), order(1.0, true, LocalTime.of(10, 0)));
+
+        assertEquals(List.of(), context.availableDrones(orders));
+    }
+}
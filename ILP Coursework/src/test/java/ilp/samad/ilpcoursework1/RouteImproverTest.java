@@ -0,0 +1,104 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
+import ilp.samad.ilpcoursework1.data.request.Requirements;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.planning.DistanceMatrix;
+import ilp.samad.ilpcoursework1.service.planning.DistanceMatrixService;
+import ilp.samad.ilpcoursework1.service.planning.RouteImprover;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteImproverTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+    private static final Duration BUDGET = Duration.ofSeconds(1);
+
+    private DistanceMatrixService distanceMatrixService;
+    private LngLat appletonTower;
+
+    @BeforeEach
+    void setUp() {
+        distanceMatrixService = new DistanceMatrixService(new PathService(new CalculationService()));
+        appletonTower = new LngLat(-3.186874, 55.944494);
+    }
+
+    private LngLat offset(double east, double north) {
+        return new LngLat(appletonTower.lng() + east * MOVE_DISTANCE, appletonTower.lat() + north * MOVE_DISTANCE);
+    }
+
+    private List<MedDispatchRec> orders(LngLat... deliveries) {
+        List<MedDispatchRec> orders = new ArrayList<>();
+        for (int i = 0; i < deliveries.length; i++) {
+            orders.add(new MedDispatchRec(i + 1, null, null, new Requirements(1.0, null, null, null), deliveries[i]));
+        }
+        return orders;
+    }
+
+    private DistanceMatrix matrixFor(List<MedDispatchRec> orders) {
+        return distanceMatrixService.build(List.of(appletonTower),
+                orders.stream().map(MedDispatchRec::delivery).toList(), List.of());
+    }
+
+    // moves for the round trip from home through every order in turn
+    private int tourMoves(List<MedDispatchRec> route, DistanceMatrix matrix) {
+        int total = 0;
+        LngLat current = appletonTower;
+        for (MedDispatchRec order : route) {
+            total += matrix.moves(current, order.delivery());
+            current = order.delivery();
+        }
+        return total + matrix.moves(current, appletonTower);
+    }
+
+    @Test
+    @DisplayName("improve - Standard: A route that doubles back on itself is untangled")
+    void testZigzagImproved() {
+        // every stop is followed by one across the square from it
+        List<MedDispatchRec> zigzag = orders(offset(6, 0), offset(0, 6), offset(6, 6), offset(3, -3));
+        DistanceMatrix matrix = matrixFor(zigzag);
+
+        List<MedDispatchRec> improved = RouteImprover.improve(appletonTower, zigzag, matrix, BUDGET);
+
+        assertTrue(tourMoves(improved, matrix) < tourMoves(zigzag, matrix));
+    }
+
+    @Test
+    @DisplayName("improve - Standard: The same orders come back, each exactly once")
+    void testKeepsEveryOrder() {
+        List<MedDispatchRec> route = orders(offset(5, 1), offset(-2, 4), offset(3, -4), offset(-5, -1), offset(1, 6));
+        DistanceMatrix matrix = matrixFor(route);
+
+        List<MedDispatchRec> improved = RouteImprover.improve(appletonTower, route, matrix, BUDGET);
+
+        assertEquals(route.size(), improved.size());
+        assertEquals(new HashSet<>(route), new HashSet<>(improved));
+        assertTrue(tourMoves(improved, matrix) <= tourMoves(route, matrix));
+    }
+
+    @Test
+    @DisplayName("improve - Boundary: Routes too short to improve are returned as they are")
+    void testShortRouteUnchanged() {
+        List<MedDispatchRec> route = orders(offset(5, 0), offset(-5, 0));
+
+        assertSame(route, RouteImprover.improve(appletonTower, route, matrixFor(route), BUDGET));
+    }
+
+    @Test
+    @DisplayName("improve - Negative: A zero budget turns the improvement off")
+    void testZeroBudgetUnchanged() {
+        List<MedDispatchRec> zigzag = orders(offset(6, 0), offset(0, 6), offset(6, 6), offset(3, -3));
+
+        assertSame(zigzag, RouteImprover.improve(appletonTower, zigzag, matrixFor(zigzag), Duration.ZERO));
+    }
+}
@@ -0,0 +1,129 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.drone.*;
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.request.MedDispatchRec;
+import ilp.samad.ilpcoursework1.data.request.Requirements;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.planning.DistanceMatrix;
+import ilp.samad.ilpcoursework1.service.planning.DistanceMatrixService;
+import ilp.samad.ilpcoursework1.service.planning.PlanningContext;
+import ilp.samad.ilpcoursework1.service.planning.SavingsPlanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SavingsPlannerTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+    private static final Duration BUDGET = Duration.ofMillis(50);
+    // 2025-12-01 is a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 1);
+
+    private DistanceMatrixService distanceMatrixService;
+    private ServicePoint appletonTower;
+    private PlanningContext context;
+
+    @BeforeEach
+    void setUp() {
+        distanceMatrixService = new DistanceMatrixService(new PathService(new CalculationService()));
+        appletonTower = new ServicePoint(1, "Appleton Tower", new LngLat(-3.186874, 55.944494));
+
+        Drone small = new Drone("1", "Small", new Capability(false, false, 4.0, 2000, 0.01, 4.3, 6.5));
+        Drone large = new Drone("2", "Large", new Capability(false, false, 10.0, 2000, 0.02, 2.0, 1.5));
+
+        Schedule allDay = new Schedule(DayOfWeek.MONDAY, LocalTime.of(0, 0), LocalTime.of(23, 59));
+        List<ServicePointDrones> availability = List.of(new ServicePointDrones(1, List.of(
+                new DroneAvailability("1", List.of(allDay)),
+                new DroneAvailability("2", List.of(allDay)))));
+
+        context = new PlanningContext(List.of(small, large), availability, List.of(appletonTower), List.of());
+    }
+
+    private LngLat offset(double east, double north) {
+        LngLat home = appletonTower.location();
+        return new LngLat(home.lng() + east * MOVE_DISTANCE, home.lat() + north * MOVE_DISTANCE);
+    }
+
+    private MedDispatchRec order(int id, double capacity, LngLat delivery) {
+        return new MedDispatchRec(id, MONDAY, LocalTime.of(10, 0), new Requirements(capacity, null, null, null),
+                delivery);
+    }
+
+    private DistanceMatrix matrixFor(List<MedDispatchRec> orders) {
+        return distanceMatrixService.build(List.of(appletonTower.location()),
+                orders.stream().map(MedDispatchRec::delivery).toList(), List.of());
+    }
+
+    private double payload(SavingsPlanner.Route route) {
+        return route.orders().stream().mapToDouble(order -> order.requirements().capacity()).sum();
+    }
+
+    @Test
+    @DisplayName("plan - Standard: Orders clustered together are joined onto shared flights")
+    void testClusteredOrdersJoined() {
+        List<MedDispatchRec> orders = List.of(
+                order(1, 1.0, offset(20, 0)), order(2, 1.0, offset(21, 1)),
+                order(3, 1.0, offset(0, 20)), order(4, 1.0, offset(1, 21)));
+
+        List<SavingsPlanner.Route> routes = SavingsPlanner.plan(orders, context, matrixFor(orders), BUDGET);
+
+        assertTrue(routes.size() < orders.size(), "Expected fewer flights than orders, got " + routes.size());
+    }
+
+    @Test
+    @DisplayName("plan - Standard: Every order is flown once and no drone is overloaded")
+    void testEveryOrderOnceWithinCapacity() {
+        List<MedDispatchRec> orders = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            double angle = i * Math.PI / 4;
+            orders.add(order(i + 1, 1.0 + (i % 3), offset(12 * Math.cos(angle), 12 * Math.sin(angle))));
+        }
+
+        List<SavingsPlanner.Route> routes = SavingsPlanner.plan(orders, context, matrixFor(orders), BUDGET);
+
+        Set<Integer> seen = new HashSet<>();
+        for (SavingsPlanner.Route route : routes) {
+            Drone drone = context.drone(route.droneId()).orElseThrow();
+            assertTrue(payload(route) <= drone.capability().capacity(), "Drone " + route.droneId() + " is overloaded.");
+            for (MedDispatchRec order : route.orders()) {
+                assertTrue(seen.add(order.id()), "Order " + order.id() + " is on more than one flight.");
+            }
+        }
+        assertEquals(orders.size(), seen.size());
+    }
+
+    @Test
+    @DisplayName("plan - Boundary: Orders too heavy to share a drone stay on flights of their own")
+    void testHeavyOrdersNotJoined() {
+        List<MedDispatchRec> orders = List.of(order(1, 6.0, offset(10, 0)), order(2, 6.0, offset(11, 0)));
+
+        List<SavingsPlanner.Route> routes = SavingsPlanner.plan(orders, context, matrixFor(orders), BUDGET);
+
+        assertEquals(2, routes.size());
+        routes.forEach(route -> assertEquals("2", route.droneId()));
+    }
+
+    @Test
+    @DisplayName("plan - Negative: An order no drone can carry is left out for the caller")
+    void testOversizedOrderLeftOut() {
+        List<MedDispatchRec> orders = List.of(order(1, 1.0, offset(10, 0)), order(2, 50.0, offset(0, 10)));
+
+        List<SavingsPlanner.Route> routes = SavingsPlanner.plan(orders, context, matrixFor(orders), BUDGET);
+
+        assertEquals(1, routes.size());
+        assertEquals(List.of(orders.getFirst()), routes.getFirst().orders());
+    }
+}
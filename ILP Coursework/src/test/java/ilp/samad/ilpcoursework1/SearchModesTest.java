@@ -0,0 +1,112 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.PathfindingMode;
+import ilp.samad.ilpcoursework1.service.path.SearchHeuristic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchModesTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+
+    private CalculationService calculationService;
+    private PathService flatService;
+    private List<RestrictedArea> wall;
+    private ZoneIndex wallIndex;
+    // far enough either side of the wall for hierarchical mode to plan over the cluster graph
+    private LngLat westOfWall;
+    private LngLat eastOfWall;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        flatService = new PathService(calculationService, new PathCache(0));
+
+        wall = List.of(new RestrictedArea("wall", 1, null, List.of(
+                new LngLat(-3.1880, 55.9430), new LngLat(-3.1875, 55.9430),
+                new LngLat(-3.1875, 55.9460), new LngLat(-3.1880, 55.9460),
+                new LngLat(-3.1880, 55.9430))));
+        wallIndex = new ZoneIndex(wall);
+        westOfWall = new LngLat(-3.1910, 55.9446);
+        eastOfWall = new LngLat(-3.1840, 55.9441);
+    }
+
+    private PathService service(PathfindingMode mode, SearchHeuristic heuristic) {
+        return new PathService(calculationService, new PathCache(0), mode, heuristic);
+    }
+
+    private void assertValidPath(List<LngLat> path, LngLat start, LngLat end) {
+        assertFalse(path.isEmpty(), "A path should have been found.");
+        assertEquals(start, path.getFirst(), "Path should begin exactly at the start.");
+        assertTrue(calculationService.calculateClose(path.getLast(), end), "Path should end close to the goal.");
+
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(MOVE_DISTANCE, calculationService.calculateDistance(path.get(i - 1), path.get(i)), 1e-12);
+            assertFalse(wallIndex.isMoveInvalid(path.get(i - 1), path.get(i)), "Step " + i + " enters a no-fly zone.");
+        }
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Every mode finds a valid path round a zone, close to flat A*")
+    void testEveryModeAgainstFlat() {
+        List<LngLat> flat = flatService.findPath(westOfWall, eastOfWall, wall);
+
+        for (PathfindingMode mode : PathfindingMode.values()) {
+            List<LngLat> path = service(mode, SearchHeuristic.EUCLIDEAN).findPath(westOfWall, eastOfWall, wall);
+
+            assertValidPath(path, westOfWall, eastOfWall);
+            assertTrue(path.size() >= flat.size(), mode + " took fewer moves than flat A*.");
+            assertTrue(path.size() - 1 <= (flat.size() - 1) * 1.1,
+                    mode + " path of " + path.size() + " points against " + flat.size() + " from flat A*.");
+        }
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: The landmark heuristic leaves flat and jump point move counts unchanged")
+    void testLandmarksKeepMoves() {
+        for (PathfindingMode mode : List.of(PathfindingMode.FLAT, PathfindingMode.JUMP_POINT)) {
+            List<LngLat> euclidean = service(mode, SearchHeuristic.EUCLIDEAN).findPath(westOfWall, eastOfWall, wall);
+            List<LngLat> landmarks = service(mode, SearchHeuristic.LANDMARKS).findPath(westOfWall, eastOfWall, wall);
+
+            assertValidPath(landmarks, westOfWall, eastOfWall);
+            assertEquals(euclidean.size(), landmarks.size(), mode + " with landmarks");
+        }
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    @DisplayName("findPath - Boundary: Hierarchical mode with landmarks builds both without blocking on itself")
+    void testHierarchicalWithLandmarks() {
+        List<LngLat> flat = flatService.findPath(westOfWall, eastOfWall, wall);
+        List<LngLat> path = service(PathfindingMode.HIERARCHICAL, SearchHeuristic.LANDMARKS)
+                .findPath(westOfWall, eastOfWall, wall);
+
+        assertValidPath(path, westOfWall, eastOfWall);
+        assertTrue(path.size() - 1 <= (flat.size() - 1) * 1.1,
+                "Hierarchical path of " + path.size() + " points against " + flat.size() + " from flat A*.");
+    }
+
+    @Test
+    @DisplayName("findPath - Negative: A goal buried in a zone has no path in any mode")
+    void testBuriedGoalEveryMode() {
+        LngLat buried = new LngLat(-3.18775, 55.9445);
+
+        for (PathfindingMode mode : PathfindingMode.values()) {
+            assertTrue(service(mode, SearchHeuristic.EUCLIDEAN).findPath(westOfWall, buried, wall).isEmpty(),
+                    mode + " found a path into the zone.");
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.cache.PathCache;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import ilp.samad.ilpcoursework1.service.path.Moves;
+import ilp.samad.ilpcoursework1.service.path.NodeHeap;
+import ilp.samad.ilpcoursework1.service.path.SearchNodes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchResolutionTest {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+
+    private CalculationService calculationService;
+    private PathService pathService;
+    private List<RestrictedArea> wall;
+    private ZoneIndex wallIndex;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        pathService = new PathService(calculationService, new PathCache(0));
+
+        wall = List.of(rectangle("wall", -3.1880, 55.9430, -3.1875, 55.9460));
+        wallIndex = new ZoneIndex(wall);
+    }
+
+    private static RestrictedArea rectangle(String name, double minLng, double minLat, double maxLng, double maxLat) {
+        return new RestrictedArea(name, 1, null, List.of(
+                new LngLat(minLng, minLat), new LngLat(maxLng, minLat),
+                new LngLat(maxLng, maxLat), new LngLat(minLng, maxLat),
+                new LngLat(minLng, minLat)));
+    }
+
+    private void assertValidPath(List<LngLat> path, LngLat start, LngLat end, ZoneIndex zones) {
+        assertFalse(path.isEmpty(), "A path should have been found.");
+        assertEquals(start, path.getFirst(), "Path should begin exactly at the start.");
+        assertTrue(calculationService.calculateClose(path.getLast(), end), "Path should end close to the goal.");
+
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(MOVE_DISTANCE, calculationService.calculateDistance(path.get(i - 1), path.get(i)), 1e-12);
+            assertFalse(zones.isMoveInvalid(path.get(i - 1), path.get(i)), "Step " + i + " enters a no-fly zone.");
+        }
+    }
+
+    // moves in the shortest path with every position kept apart, i.e. a* with no merging at all.
+    // it can take millions of expansions, so the legs compared are ones it gets through quickly
+    private static int exactMoves(LngLat start, LngLat goal, ZoneIndex zones) {
+        SearchNodes nodes = new SearchNodes(start);
+        NodeHeap open = new NodeHeap(nodes);
+        int startNode = nodes.add(nodes.key(start.lng(), start.lat()), start.lng(), start.lat());
+        nodes.update(startNode, 0.0, distance(start.lng(), start.lat(), goal), SearchNodes.NONE);
+        open.push(startNode);
+
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            nodes.close(current);
+            if (distance(nodes.lng(current), nodes.lat(current), goal) < MOVE_DISTANCE) {
+                return nodes.path(current).size() - 1;
+            }
+
+            double g = nodes.g(current) + MOVE_DISTANCE;
+            for (int direction = 0; direction < Moves.DIRECTIONS; direction++) {
+                double lng = nodes.lng(current) + Moves.lngOffset(direction);
+                double lat = nodes.lat(current) + Moves.latOffset(direction);
+                long key = nodes.key(lng, lat);
+                int neighbor = nodes.find(key);
+                if (neighbor != SearchNodes.NONE && (nodes.isClosed(neighbor) || g >= nodes.g(neighbor))) {
+                    continue;
+                }
+                if (zones.isMoveInvalid(nodes.lng(current), nodes.lat(current), lng, lat)) {
+                    continue;
+                }
+                if (neighbor == SearchNodes.NONE) {
+                    neighbor = nodes.add(key, lng, lat);
+                }
+                nodes.update(neighbor, lng, lat, g, g + distance(lng, lat, goal), current);
+                open.push(neighbor);
+            }
+        }
+        return -1;
+    }
+
+    private static double distance(double lng, double lat, LngLat goal) {
+        return Math.hypot(lng - goal.lng(), lat - goal.lat());
+    }
+
+    @Test
+    @DisplayName("findPath - Standard: Merging nearby positions costs no moves against exact A* round a zone")
+    void testSameMovesAsExact() {
+        List<LngLat[]> legs = List.of(
+                new LngLat[]{new LngLat(-3.1869, 55.9425), new LngLat(-3.1886, 55.9437)},
+                new LngLat[]{new LngLat(-3.1879, 55.9425), new LngLat(-3.1876, 55.9465)},
+                new LngLat[]{new LngLat(-3.1878, 55.9465), new LngLat(-3.1877, 55.9425)},
+                new LngLat[]{new LngLat(-3.1883, 55.9431), new LngLat(-3.1870, 55.9447)});
+
+        for (LngLat[] leg : legs) {
+            List<LngLat> path = pathService.findPath(leg[0], leg[1], wall);
+
+            assertValidPath(path, leg[0], leg[1], wallIndex);
+            assertEquals(exactMoves(leg[0], leg[1], wallIndex), path.size() - 1);
+        }
+    }
+
+    @Test
+    @DisplayName("findPath - Boundary: A gap between two zones a few moves wide is flown through like exact A* would")
+    void testNarrowGap() {
+        List<RestrictedArea> zones = List.of(
+                rectangle("north", -3.1880, 55.94455, -3.1875, 55.9470),
+                rectangle("south", -3.1880, 55.9420, -3.1875, 55.94405));
+        ZoneIndex index = new ZoneIndex(zones);
+        LngLat west = new LngLat(-3.1890, 55.9443);
+        LngLat east = new LngLat(-3.1865, 55.9443);
+
+        List<LngLat> path = pathService.findPath(west, east, zones);
+
+        assertValidPath(path, west, east, index);
+        assertEquals(exactMoves(west, east, index), path.size() - 1);
+    }
+
+    @Test
+    @DisplayName("findPath - Boundary: A leg out of the back of a deep pocket is found however many cells it floods")
+    void testDeepPocket() {
+        // a pocket a hundred moves deep, open to the west, with the goal just behind its back wall
+        List<RestrictedArea> pocket = List.of(
+                rectangle("north", -3.2000, 55.9600, -3.1845, 55.9605),
+                rectangle("south", -3.2000, 55.9445, -3.1845, 55.9450),
+                rectangle("back", -3.1850, 55.9450, -3.1845, 55.9600));
+        ZoneIndex index = new ZoneIndex(pocket);
+        LngLat inside = new LngLat(-3.1860, 55.9525);
+        LngLat behind = new LngLat(-3.1835, 55.9525);
+
+        List<LngLat> path = pathService.findPath(inside, behind, pocket);
+
+        assertValidPath(path, inside, behind, index);
+    }
+
+    @Test
+    @DisplayName("findPath - Negative: A goal buried in a zone has no path, one just inside its edge is still reached")
+    void testGoalInsideZone() {
+        LngLat west = new LngLat(-3.1890, 55.9446);
+        LngLat buried = new LngLat(-3.18775, 55.9445);
+        LngLat justInside = new LngLat(-3.18805 + MOVE_DISTANCE / 2, 55.9445);
+
+        assertTrue(pathService.findPath(west, buried, wall).isEmpty());
+        assertValidPath(pathService.findPath(west, justInside, wall), west, justInside, wallIndex);
+    }
+}
@@ -0,0 +1,133 @@
+package ilp.samad.ilpcoursework1;
+
+import ilp.samad.ilpcoursework1.data.geometry.LngLat;
+import ilp.samad.ilpcoursework1.data.geometry.Region;
+import ilp.samad.ilpcoursework1.data.geometry.RestrictedArea;
+import ilp.samad.ilpcoursework1.service.CalculationService;
+import ilp.samad.ilpcoursework1.service.PathService;
+import ilp.samad.ilpcoursework1.service.geometry.ZoneIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZoneIndexTest {
+
+    private CalculationService calculationService;
+    private PathService pathService;
+    private List<RestrictedArea> noFlyZones;
+    private ZoneIndex zoneIndex;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = new CalculationService();
+        pathService = new PathService(calculationService);
+
+        // a square and a triangle, both closed
+        noFlyZones = List.of(
+                new RestrictedArea("square", 1, null, List.of(
+                        new LngLat(0.0, 0.0), new LngLat(0.001, 0.0),
+                        new LngLat(0.001, 0.001), new LngLat(0.0, 0.001),
+                        new LngLat(0.0, 0.0))),
+                new RestrictedArea("triangle", 2, null, List.of(
+                        new LngLat(0.002, 0.0), new LngLat(0.003, 0.0),
+                        new LngLat(0.0025, 0.001), new LngLat(0.002, 0.0)))
+        );
+        zoneIndex = new ZoneIndex(noFlyZones);
+    }
+
+    @Test
+    @DisplayName("isMoveInvalid - Standard: Move ending inside a zone is invalid")
+    void testMoveIntoZone() {
+        assertTrue(zoneIndex.isMoveInvalid(new LngLat(0.0005, -0.0001), new LngLat(0.0005, 0.00005)));
+    }
+
+    @Test
+    @DisplayName("isMoveInvalid - Standard: Move far away from every zone is valid")
+    void testMoveFarAway() {
+        assertFalse(zoneIndex.isMoveInvalid(new LngLat(1.0, 1.0), new LngLat(1.00015, 1.0)));
+    }
+
+    @Test
+    @DisplayName("isMoveInvalid - Boundary: Move cutting across a corner is invalid")
+    void testMoveCuttingCorner() {
+        assertTrue(zoneIndex.isMoveInvalid(new LngLat(0.00095, 0.00105), new LngLat(0.00105, 0.00095)),
+                "Both ends are outside the square but the line passes through its corner.");
+    }
+
+    @Test
+    @DisplayName("isMoveInvalid - Boundary: Move ending exactly on an edge is invalid")
+    void testMoveEndingOnEdge() {
+        assertTrue(zoneIndex.isMoveInvalid(new LngLat(0.0005, -0.00015), new LngLat(0.0005, 0.0)));
+    }
+
+    @Test
+    @DisplayName("isMoveInvalid - Boundary: No zones means every move is valid")
+    void testNoZones() {
+        ZoneIndex empty = new ZoneIndex(List.of());
+        assertFalse(empty.isMoveInvalid(new LngLat(0.0, 0.0), new LngLat(0.00015, 0.0)));
+    }
+
+    @Test
+    @DisplayName("isCorridorClear - Standard: Segment well away from every zone is clear")
+    void testCorridorClear() {
+        assertTrue(zoneIndex.isCorridorClear(-0.001, 0.002, 0.004, 0.002, 0.00015));
+    }
+
+    @Test
+    @DisplayName("isCorridorClear - Boundary: Segment passing within the clearance of an edge is not clear")
+    void testCorridorPassesClose() {
+        assertFalse(zoneIndex.isCorridorClear(-0.001, 0.0011, 0.0005, 0.0011, 0.00015),
+                "The square's top edge is only 0.0001 below the segment.");
+        assertTrue(zoneIndex.isCorridorClear(-0.001, 0.0011, 0.0005, 0.0011, 0.00005));
+    }
+
+    @Test
+    @DisplayName("isCorridorClear - Negative: Segment running wholly inside a zone is not clear")
+    void testCorridorInsideZone() {
+        assertFalse(zoneIndex.isCorridorClear(0.0004, 0.0004, 0.0006, 0.0006, 0.00001));
+    }
+
+    @Test
+    @DisplayName("isNearAnyZone - Boundary: Point just outside an edge is near it only within the clearance")
+    void testNearAnyZone() {
+        assertTrue(zoneIndex.isNearAnyZone(0.0005, 0.0011, 0.00015), "The square's top edge is 0.0001 below.");
+        assertFalse(zoneIndex.isNearAnyZone(0.0005, 0.0011, 0.00005));
+        assertTrue(zoneIndex.isNearAnyZone(0.0005, 0.0005, 0.00001), "Points inside a zone are always near it.");
+        assertFalse(zoneIndex.isNearAnyZone(-0.001, 0.002, 0.00015));
+    }
+
+    @Test
+    @DisplayName("ZoneIndex - Negative: Zone that is not closed is rejected")
+    void testOpenZoneRejected() {
+        List<RestrictedArea> open = List.of(new RestrictedArea("open", 3, null, List.of(
+                new LngLat(0.0, 0.0), new LngLat(0.001, 0.0), new LngLat(0.001, 0.001))));
+
+        assertThrows(IllegalArgumentException.class, () -> new ZoneIndex(open));
+    }
+
+    @Test
+    @DisplayName("isMoveInvalid - Standard: Agrees with the per-zone checks for random moves")
+    void testMatchesBruteForce() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5_000; i++) {
+            LngLat start = new LngLat(-0.0005 + random.nextDouble() * 0.004, -0.0005 + random.nextDouble() * 0.002);
+            LngLat end = calculationService.calculateNextPosition(start, random.nextInt(16) * 22.5);
+
+            boolean expected = false;
+            for (RestrictedArea zone : noFlyZones) {
+                if (calculationService.calculateIsInRegion(end, new Region(zone.name(), zone.vertices()))
+                        || pathService.doesLineIntersectPolygon(start, end, zone.vertices())) {
+                    expected = true;
+                }
+            }
+
+            assertEquals(expected, zoneIndex.isMoveInvalid(start, end), "Mismatch for move from " + start + " to " + end);
+        }
+    }
+}